@@ -0,0 +1,199 @@
+/* ConcurrentDisjointSetsTest.java */
+
+/**
+ * The ConcurrentDisjointSetsTest class tests the ConcurrentDisjointSets
+ * class by having several threads unite sets at once, and checking the
+ * result against a sequential DisjointSets given the same pairs.
+ */
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import set.*;
+
+public class ConcurrentDisjointSetsTest {
+
+  private static final int THREADS = 8;
+  private static final int ELEMENTS = 50000;
+
+  /**
+   * How long, in milliseconds, the threads may take before the test decides
+   * they are stuck.
+   */
+  private static final long TIMEOUT = 60000;
+
+  /**
+   * Unites the pairs (xs[i], ys[i]) in a ConcurrentDisjointSets, with
+   * THREADS threads each taking every THREADS-th pair, and in a
+   * DisjointSets, one pair at a time.  Then checks that:
+   *
+   *   the number of union() calls that returned true is the number of
+   *     unions the DisjointSets made (each merge is won by exactly one
+   *     thread);
+   *   find() partitions the elements exactly as the DisjointSets does;
+   *   sameSet() agrees with the DisjointSets for every pair, and for random
+   *     pairs of elements;
+   *   every pair a thread saw in the same set while the others were still
+   *     uniting is in the same set at the end.
+   */
+  private static boolean trial(final int[] xs, final int[] ys, String name)
+    throws InterruptedException {
+    final ConcurrentDisjointSets sets = new ConcurrentDisjointSets(ELEMENTS);
+    final AtomicInteger wins = new AtomicInteger();
+    final AtomicReference<String> problem = new AtomicReference<String>();
+    final List<int[]> seenTogether =
+      Collections.synchronizedList(new ArrayList<int[]>());
+    final CyclicBarrier start = new CyclicBarrier(THREADS);
+
+    Thread[] threads = new Thread[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      final int me = t;
+      threads[t] = new Thread() {
+        public void run() {
+          Random random = new Random(61 + me);
+          try {
+            start.await();
+          } catch (Exception e) {
+            return;
+          }
+          for (int i = me; i < xs.length; i += THREADS) {
+            if (i % 64 == me) {
+              Thread.yield();        // interleave, even on a single CPU
+            }
+            if (sets.union(xs[i], ys[i])) {
+              wins.incrementAndGet();
+            }
+            if (!sets.sameSet(xs[i], ys[i]) || !sets.sameSet(ys[i], xs[i])) {
+              problem.compareAndSet(null, "right after union(" + xs[i] +
+                                    ", " + ys[i] + "), sameSet() says " +
+                                    "the two are in different sets");
+            }
+            if (i % 16 == me) {
+              int a = random.nextInt(ELEMENTS);
+              int b = random.nextInt(ELEMENTS);
+              if (sets.sameSet(a, b)) {
+                seenTogether.add(new int[] { a, b });
+              }
+            }
+          }
+        }
+      };
+      threads[t].setDaemon(true);
+    }
+    for (int t = 0; t < THREADS; t++) {
+      threads[t].start();
+    }
+    for (int t = 0; t < THREADS; t++) {
+      threads[t].join(TIMEOUT);
+      if (threads[t].isAlive()) {
+        return KruskalTest.fail(name + ":  the threads never finish.");
+      }
+    }
+    if (problem.get() != null) {
+      return KruskalTest.fail(name + ":  " + problem.get() + ".");
+    }
+
+    DisjointSets oracle = new DisjointSets(ELEMENTS);
+    int merges = 0;
+    for (int i = 0; i < xs.length; i++) {
+      if (oracle.unionByFind(xs[i], ys[i])) {
+        merges++;
+      }
+    }
+    if (wins.get() != merges) {
+      return KruskalTest.fail(name + ":  union() returned true " +
+                              wins.get() + " times, but the pairs make " +
+                              merges + " unions.");
+    }
+
+    // The partitions agree if each concurrent root matches exactly one
+    // sequential root, and vice versa.
+    int[] toOracle = new int[ELEMENTS];
+    int[] fromOracle = new int[ELEMENTS];
+    Arrays.fill(toOracle, -1);
+    Arrays.fill(fromOracle, -1);
+    for (int x = 0; x < ELEMENTS; x++) {
+      int root = sets.find(x);
+      int oracleRoot = oracle.find(x);
+      if (toOracle[root] == -1 && fromOracle[oracleRoot] == -1) {
+        toOracle[root] = oracleRoot;
+        fromOracle[oracleRoot] = root;
+      } else if (toOracle[root] != oracleRoot ||
+                 fromOracle[oracleRoot] != root) {
+        return KruskalTest.fail(name + ":  element " + x + " is in the set " +
+                                "of " + root + ", which doesn't match the " +
+                                "sets DisjointSets makes from the same " +
+                                "pairs.");
+      }
+    }
+
+    Random random = new Random(97);
+    for (int i = 0; i < xs.length + ELEMENTS; i++) {
+      int a = i < xs.length ? xs[i] : random.nextInt(ELEMENTS);
+      int b = i < xs.length ? ys[i] : random.nextInt(ELEMENTS);
+      if (sets.sameSet(a, b) != (oracle.find(a) == oracle.find(b))) {
+        return KruskalTest.fail(name + ":  sameSet(" + a + ", " + b + ") " +
+                                "returns " + sets.sameSet(a, b) + ".");
+      }
+    }
+    for (int[] pair : seenTogether) {
+      if (oracle.find(pair[0]) != oracle.find(pair[1])) {
+        return KruskalTest.fail(name + ":  while the threads were uniting, " +
+                                "sameSet(" + pair[0] + ", " + pair[1] +
+                                ") returned true, but they are never " +
+                                "united.");
+      }
+    }
+    return true;
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    int passed = 0;
+    int total = 0;
+    Random random = new Random(61);
+
+    System.out.println("Running concurrent disjoint sets test.");
+    int[] sizes = { ELEMENTS / 4, ELEMENTS / 2, ELEMENTS, 3 * ELEMENTS };
+    for (int s = 0; s < sizes.length; s++) {
+      int m = sizes[s];
+      int[] xs = new int[m];
+      int[] ys = new int[m];
+      for (int i = 0; i < m; i++) {
+        xs[i] = random.nextInt(ELEMENTS);
+        ys[i] = random.nextInt(ELEMENTS);
+      }
+      String name = m + " random unions";
+      System.out.println(THREADS + " threads making " + name + ".");
+      total++;
+      if (trial(xs, ys, name)) {
+        passed++;
+      }
+    }
+
+    // A path, so that neighboring threads fight over the same roots, and a
+    // star, so that every union involves the same element.
+    int[] xs = new int[ELEMENTS - 1];
+    int[] ys = new int[ELEMENTS - 1];
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = i;
+      ys[i] = i + 1;
+    }
+    System.out.println(THREADS + " threads uniting a path.");
+    total++;
+    if (trial(xs, ys, "A path")) {
+      passed++;
+    }
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = i + 1;
+      ys[i] = 0;
+    }
+    System.out.println(THREADS + " threads uniting a star.");
+    total++;
+    if (trial(xs, ys, "A star")) {
+      passed++;
+    }
+
+    System.out.println("Your concurrent disjoint sets test score is " +
+                       passed + " out of " + total + ".");
+  }
+}
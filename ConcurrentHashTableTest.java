@@ -0,0 +1,315 @@
+/* ConcurrentHashTableTest.java */
+
+/**
+ * The ConcurrentHashTableTest class tests the ConcurrentHashTable class with
+ * several threads inserting, finding and removing at once, and checks the
+ * results against sequential oracles:  a java.util.HashMap for each thread's
+ * own keys, and counts of the inserts and removes that succeeded for keys
+ * the threads share.
+ */
+
+import dict.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class ConcurrentHashTableTest {
+
+  private static final int THREADS = 8;
+  private static final int OPS = 100000;
+
+  /**
+   * How long, in milliseconds, the threads may take before the test decides
+   * they are stuck.
+   */
+  private static final long TIMEOUT = 60000;
+
+  /**
+   * Starts "threads", waits for them to finish, and returns false if any is
+   * still running after TIMEOUT.
+   */
+  private static boolean runAll(Thread[] threads)
+    throws InterruptedException {
+    for (int t = 0; t < threads.length; t++) {
+      threads[t].setDaemon(true);
+      threads[t].start();
+    }
+    for (int t = 0; t < threads.length; t++) {
+      threads[t].join(TIMEOUT);
+      if (threads[t].isAlive()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Each thread owns the keys equal to its number modulo THREADS, and runs
+   * OPS random inserts, finds and removes on them, checking each answer
+   * against a HashMap of its own.  It also finds keys owned by the others,
+   * which it can't predict, but whose entries must have the right key.
+   * The table starts tiny, so it doubles many times along the way.
+   * Afterward, the table must hold exactly what the HashMaps hold.
+   */
+  private static boolean ownKeys() throws InterruptedException {
+    final ConcurrentHashTable table = new ConcurrentHashTable(1, 4);
+    final List<Map<Integer, Integer>> oracles =
+      new ArrayList<Map<Integer, Integer>>();
+    final AtomicReference<String> problem = new AtomicReference<String>();
+    Thread[] threads = new Thread[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      final int me = t;
+      final Map<Integer, Integer> oracle = new HashMap<Integer, Integer>();
+      oracles.add(oracle);
+      threads[t] = new Thread() {
+        public void run() {
+          Random random = new Random(61 + me);
+          for (int op = 0; op < OPS && problem.get() == null; op++) {
+            // The key range rises and falls, so the table fills and drains.
+            int range = (op / 20000) % 2 == 0 ? 5000 : 100;
+            Integer key = Integer.valueOf(random.nextInt(range) * THREADS +
+                                          me);
+            int kind = random.nextInt(4);
+            if (kind == 0) {
+              if (!oracle.containsKey(key)) {
+                Integer value = Integer.valueOf(op);
+                table.insert(key, value);
+                oracle.put(key, value);
+              }
+            } else if (kind == 1) {
+              Entry e = table.find(key);
+              Integer expected = oracle.get(key);
+              if (e == null ? expected != null
+                            : !e.value().equals(expected)) {
+                problem.compareAndSet(null, "thread " + me + " finds " +
+                                      (e == null ? null : e.value()) +
+                                      " for its key " + key + " instead " +
+                                      "of " + expected);
+              }
+            } else if (kind == 2) {
+              Entry e = table.remove(key);
+              Integer expected = oracle.remove(key);
+              if (e == null ? expected != null
+                            : !e.value().equals(expected)) {
+                problem.compareAndSet(null, "thread " + me + " removes " +
+                                      (e == null ? null : e.value()) +
+                                      " for its key " + key + " instead " +
+                                      "of " + expected);
+              }
+            } else {
+              Integer other = Integer.valueOf(random.nextInt(5000));
+              Entry e = table.find(other);
+              if (e != null && !e.key().equals(other)) {
+                problem.compareAndSet(null, "find(" + other + ") returns " +
+                                      "the entry for " + e.key());
+              }
+            }
+          }
+        }
+      };
+    }
+    if (!runAll(threads)) {
+      return KruskalTest.fail("Threads using their own keys never finish.");
+    }
+    if (problem.get() != null) {
+      return KruskalTest.fail("With " + THREADS + " threads using their " +
+                              "own keys, " + problem.get() + ".");
+    }
+
+    int expectedSize = 0;
+    for (int t = 0; t < THREADS; t++) {
+      Map<Integer, Integer> oracle = oracles.get(t);
+      expectedSize += oracle.size();
+      for (Map.Entry<Integer, Integer> pair : oracle.entrySet()) {
+        Entry e = table.find(pair.getKey());
+        if (e == null || !e.value().equals(pair.getValue())) {
+          return KruskalTest.fail("After the threads finish, find(" +
+                                  pair.getKey() + ") doesn't return the " +
+                                  "entry inserted.");
+        }
+      }
+    }
+    if (table.size() != expectedSize) {
+      return KruskalTest.fail("After the threads finish, size() is " +
+                              table.size() + " but should be " +
+                              expectedSize + ".");
+    }
+    for (int k = 0; k < 5000 * THREADS; k++) {
+      Integer key = Integer.valueOf(k);
+      if (!oracles.get(k % THREADS).containsKey(key) &&
+          table.find(key) != null) {
+        return KruskalTest.fail("After the threads finish, find(" + k +
+                                ") returns an entry that was removed.");
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Every thread inserts and removes the same few keys, so that the stripes
+   * are fought over.  Each thread counts the inserts it made and the
+   * removes that found an entry, key by key.  Since the table keeps
+   * duplicate keys, each key must end up with exactly (inserts - removes)
+   * entries, and size() must be their sum.
+   */
+  private static boolean sharedKeys() throws InterruptedException {
+    final ConcurrentHashTable table = new ConcurrentHashTable(1, 4);
+    final int keys = 64;
+    final int[][] inserted = new int[THREADS][keys];
+    final int[][] removed = new int[THREADS][keys];
+    Thread[] threads = new Thread[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      final int me = t;
+      threads[t] = new Thread() {
+        public void run() {
+          Random random = new Random(97 + me);
+          for (int op = 0; op < OPS; op++) {
+            int k = random.nextInt(keys);
+            if (random.nextInt(5) < 3) {
+              table.insert(Integer.valueOf(k), Integer.valueOf(me));
+              inserted[me][k]++;
+            } else if (table.remove(Integer.valueOf(k)) != null) {
+              removed[me][k]++;
+            }
+          }
+        }
+      };
+    }
+    if (!runAll(threads)) {
+      return KruskalTest.fail("Threads sharing keys never finish.");
+    }
+
+    int expectedSize = 0;
+    int[] expected = new int[keys];
+    for (int k = 0; k < keys; k++) {
+      for (int t = 0; t < THREADS; t++) {
+        expected[k] += inserted[t][k] - removed[t][k];
+      }
+      expectedSize += expected[k];
+    }
+    if (table.size() != expectedSize) {
+      return KruskalTest.fail("With " + THREADS + " threads sharing keys, " +
+                              "size() is " + table.size() + " but the " +
+                              "inserts and removes leave " + expectedSize +
+                              ".");
+    }
+    for (int k = 0; k < keys; k++) {
+      int count = 0;
+      while (table.remove(Integer.valueOf(k)) != null) {
+        count++;
+      }
+      if (count != expected[k]) {
+        return KruskalTest.fail("With " + THREADS + " threads sharing " +
+                                "keys, key " + k + " has " + count +
+                                " entries but should have " + expected[k] +
+                                ".");
+      }
+    }
+    if (table.size() != 0 || !table.isEmpty()) {
+      return KruskalTest.fail("After every entry is removed, size() is " +
+                              table.size() + ".");
+    }
+    return true;
+  }
+
+  /**
+   * Readers find a set of keys that are never removed, while writers insert
+   * and remove other keys fast enough to double the table again and again.
+   * A reader must never miss a stable key, even in the middle of a resize.
+   */
+  private static boolean readersDuringResize() throws InterruptedException {
+    final ConcurrentHashTable table = new ConcurrentHashTable(1, 4);
+    final int stable = 1000;
+    for (int k = 0; k < stable; k++) {
+      table.insert(Integer.valueOf(-1 - k), Integer.valueOf(k));
+    }
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicReference<String> problem = new AtomicReference<String>();
+    final AtomicLong finds = new AtomicLong();
+    final int writers = THREADS / 2;
+    Thread[] threads = new Thread[THREADS];
+    for (int t = 0; t < writers; t++) {
+      final int me = t;
+      threads[t] = new Thread() {
+        public void run() {
+          for (int i = 0; i < OPS; i++) {
+            table.insert(Integer.valueOf(i * writers + me), "w");
+          }
+          for (int i = 0; i < OPS; i++) {
+            table.remove(Integer.valueOf(i * writers + me));
+          }
+        }
+      };
+    }
+    for (int t = writers; t < THREADS; t++) {
+      final int me = t;
+      threads[t] = new Thread() {
+        public void run() {
+          Random random = new Random(me);
+          while (!stop.get()) {
+            int k = random.nextInt(stable);
+            Entry e = table.find(Integer.valueOf(-1 - k));
+            if (e == null || !e.value().equals(Integer.valueOf(k))) {
+              problem.compareAndSet(null, "find(" + (-1 - k) + ") " +
+                                    "misses an entry that is never " +
+                                    "removed");
+            }
+            finds.incrementAndGet();
+          }
+        }
+      };
+      threads[t].setDaemon(true);
+      threads[t].start();
+    }
+    Thread[] writerThreads = new Thread[writers];
+    System.arraycopy(threads, 0, writerThreads, 0, writers);
+    boolean finished = runAll(writerThreads);
+    stop.set(true);
+    for (int t = writers; t < THREADS; t++) {
+      threads[t].join(TIMEOUT);
+    }
+    if (!finished) {
+      return KruskalTest.fail("Writers resizing the table never finish.");
+    }
+    if (problem.get() != null) {
+      return KruskalTest.fail("While the table resizes, " + problem.get() +
+                              ".");
+    }
+    if (finds.get() == 0) {
+      return KruskalTest.fail("The readers never ran.");
+    }
+    if (table.size() != stable) {
+      return KruskalTest.fail("After the writers remove their keys, size() " +
+                              "is " + table.size() + " but should be " +
+                              stable + ".");
+    }
+    return true;
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    int passed = 0;
+    int total = 0;
+
+    System.out.println("Running concurrent hash table test.");
+    System.out.println("Threads inserting, finding and removing their own " +
+                       "keys.");
+    total++;
+    if (ownKeys()) {
+      passed++;
+    }
+    System.out.println("Threads inserting and removing the same keys.");
+    total++;
+    if (sharedKeys()) {
+      passed++;
+    }
+    System.out.println("Readers finding keys while writers resize the " +
+                       "table.");
+    total++;
+    if (readersDuringResize()) {
+      passed++;
+    }
+
+    System.out.println("Your concurrent hash table test score is " + passed +
+                       " out of " + total + ".");
+  }
+}
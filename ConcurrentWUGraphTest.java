@@ -0,0 +1,269 @@
+/* ConcurrentWUGraphTest.java */
+
+/**
+ * The ConcurrentWUGraphTest class tests the ConcurrentWUGraph class with
+ * readers and writers running at once, including visitors that query the
+ * graph while a writer is waiting for the lock.
+ */
+
+import graph.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class ConcurrentWUGraphTest {
+
+  private static final int VERTICES = 20;
+  private static final int ROUNDS = 20;
+
+  /**
+   * How long, in milliseconds, a thread may take before the test decides
+   * it is stuck.
+   */
+  private static final long TIMEOUT = 5000;
+
+  /**
+   * Returns a graph on VERTICES vertices (Integers) joined in a cycle, with
+   * edge (i, i + 1) of weight i.
+   */
+  private static ConcurrentWUGraph cycle() {
+    ConcurrentWUGraph g = new ConcurrentWUGraph();
+    for (int i = 0; i < VERTICES; i++) {
+      g.addVertex(Integer.valueOf(i));
+    }
+    for (int i = 0; i < VERTICES; i++) {
+      g.addEdge(Integer.valueOf(i), Integer.valueOf((i + 1) % VERTICES), i);
+    }
+    return g;
+  }
+
+  /**
+   * Waits until "thread" is parked or blocked, as a writer waiting for the
+   * lock is.  Returns false if it hasn't happened within TIMEOUT.
+   */
+  private static boolean waitUntilParked(Thread thread)
+    throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (System.currentTimeMillis() < deadline) {
+      Thread.State state = thread.getState();
+      if (state == Thread.State.WAITING || state == Thread.State.BLOCKED ||
+          state == Thread.State.TIMED_WAITING) {
+        return true;
+      }
+      Thread.sleep(1);
+    }
+    return false;
+  }
+
+  /**
+   * Starts forEachEdge() on g in one thread.  Once its visitor is running,
+   * starts a writer in another thread, waits until the writer is waiting for
+   * the lock, and then has the visitor read g again through getVertices(),
+   * getNeighbors(), forEachNeighbor(), forEachNeighborId() and the O(1)
+   * queries.  Both threads must finish, and the reads must see the graph as
+   * it was before the write.
+   */
+  private static boolean nestedReads(final int round)
+    throws InterruptedException {
+    final ConcurrentWUGraph g = cycle();
+    final CountDownLatch inside = new CountDownLatch(1);
+    final CountDownLatch writerParked = new CountDownLatch(1);
+    final String[] problem = new String[1];
+    final AtomicBoolean nestedDone = new AtomicBoolean();
+
+    final Thread writer = new Thread() {
+      public void run() {
+        if (round % 2 == 0) {
+          g.addVertex(Integer.valueOf(VERTICES));
+        } else {
+          g.removeEdge(Integer.valueOf(0), Integer.valueOf(1));
+        }
+      }
+    };
+    writer.setDaemon(true);
+
+    Thread reader = new Thread() {
+      public void run() {
+        g.forEachEdge(new EdgeVisitor() {
+          public void visit(int u, int v, int weight) {
+            if (nestedDone.get()) {
+              return;
+            }
+            inside.countDown();
+            try {
+              writerParked.await();
+            } catch (InterruptedException e) {
+              return;
+            }
+            final int[] count = new int[1];
+            Object[] vertices = g.getVertices();
+            Neighbors neigh = g.getNeighbors(Integer.valueOf(0));
+            g.forEachNeighbor(Integer.valueOf(1), new NeighborVisitor() {
+              public void visit(Object neighbor, int w) {
+                count[0]++;
+              }
+            });
+            g.forEachNeighborId(g.vertexId(Integer.valueOf(2)),
+                                new IdNeighborVisitor() {
+              public void visit(int neighbor, int w) {
+                count[0]++;
+              }
+            });
+            if (vertices.length != VERTICES ||
+                g.vertexCount() != VERTICES ||
+                g.edgeCount() != VERTICES ||
+                neigh.neighborList.length != 2 || count[0] != 4 ||
+                !g.isEdge(Integer.valueOf(0), Integer.valueOf(1))) {
+              problem[0] = "a visitor's reads see a write that should " +
+                           "still be waiting";
+            }
+            nestedDone.set(true);
+          }
+        });
+      }
+    };
+    reader.setDaemon(true);
+
+    reader.start();
+    if (!inside.await(TIMEOUT, TimeUnit.MILLISECONDS)) {
+      return KruskalTest.fail("Round " + round + ":  forEachEdge() never " +
+                              "called its visitor.");
+    }
+    writer.start();
+    if (!waitUntilParked(writer)) {
+      return KruskalTest.fail("Round " + round + ":  the writer didn't " +
+                              "wait for the reader.");
+    }
+    writerParked.countDown();
+    reader.join(TIMEOUT);
+    writer.join(TIMEOUT);
+    if (reader.isAlive() || writer.isAlive()) {
+      return KruskalTest.fail("Round " + round + ":  a visitor reading the " +
+                              "graph while a writer waits deadlocks.");
+    }
+    if (problem[0] != null) {
+      return KruskalTest.fail("Round " + round + ":  " + problem[0] + ".");
+    }
+    if (round % 2 == 0 ? g.vertexCount() != VERTICES + 1
+                       : g.edgeCount() != VERTICES - 1) {
+      return KruskalTest.fail("Round " + round + ":  the write was lost.");
+    }
+    return true;
+  }
+
+  /**
+   * Runs several writers, each adding and then removing its own edges,
+   * against readers whose visitors read the graph again.  Inside a visitor
+   * the graph can't change, so every read there must agree with the others.
+   * At the end, every writer's edges must be gone and the cycle intact.
+   */
+  private static boolean stress() throws InterruptedException {
+    final ConcurrentWUGraph g = cycle();
+    final int writers = 4;
+    final int readers = 4;
+    final int writes = 2000;
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicReference<String> problem = new AtomicReference<String>();
+    final AtomicLong reads = new AtomicLong();
+
+    Thread[] threads = new Thread[writers + readers];
+    for (int w = 0; w < writers; w++) {
+      final Object hub = "writer " + w;
+      threads[w] = new Thread() {
+        public void run() {
+          g.addVertex(hub);
+          for (int i = 0; i < writes; i++) {
+            Object v = Integer.valueOf((i / 2) % VERTICES);
+            if (i % 2 == 0) {
+              g.addEdge(hub, v, i);
+            } else {
+              g.removeEdge(hub, v);
+            }
+          }
+          g.removeVertex(hub);
+        }
+      };
+    }
+    for (int r = 0; r < readers; r++) {
+      threads[writers + r] = new Thread() {
+        public void run() {
+          while (!stop.get()) {
+            g.forEachEdge(new EdgeVisitor() {
+              public void visit(int u, int v, int weight) {
+                Object x = g.vertexAt(u);
+                Object y = g.vertexAt(v);
+                if (!g.isEdge(x, y) || g.weight(x, y) != weight) {
+                  problem.compareAndSet(null, "a visitor was given an edge " +
+                                        "that isn't in the graph");
+                }
+                Neighbors neigh = g.getNeighbors(x);
+                if (neigh == null ||
+                    neigh.neighborList.length != g.degree(x)) {
+                  problem.compareAndSet(null, "getNeighbors() and degree() " +
+                                        "disagree inside a visitor");
+                }
+              }
+            });
+            if (g.getVertices().length > VERTICES + writers) {
+              problem.compareAndSet(null, "getVertices() returns too many " +
+                                    "vertices");
+            }
+            reads.incrementAndGet();
+          }
+        }
+      };
+      threads[writers + r].setDaemon(true);
+    }
+    for (int i = 0; i < threads.length; i++) {
+      threads[i].start();
+    }
+    for (int w = 0; w < writers; w++) {
+      threads[w].join(10 * TIMEOUT);
+      if (threads[w].isAlive()) {
+        stop.set(true);
+        return KruskalTest.fail("A writer never finished; the readers " +
+                                "starve it or deadlock with it.");
+      }
+    }
+    stop.set(true);
+    for (int r = 0; r < readers; r++) {
+      threads[writers + r].join(TIMEOUT);
+      if (threads[writers + r].isAlive()) {
+        return KruskalTest.fail("A reader never finished.");
+      }
+    }
+    if (problem.get() != null) {
+      return KruskalTest.fail("Under load, " + problem.get() + ".");
+    }
+    if (reads.get() == 0) {
+      return KruskalTest.fail("The readers never got the lock.");
+    }
+    if (g.vertexCount() != VERTICES || g.edgeCount() != VERTICES) {
+      return KruskalTest.fail("After the writers finish, the graph has " +
+                              g.vertexCount() + " vertices and " +
+                              g.edgeCount() + " edges but should have " +
+                              VERTICES + " of each.");
+    }
+    return true;
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    int passed = 0;
+
+    System.out.println("Running concurrent graph test.");
+    System.out.println("Reading the graph from visitors while a writer " +
+                       "waits, " + ROUNDS + " times.");
+    for (int round = 0; round < ROUNDS; round++) {
+      if (nestedReads(round)) {
+        passed++;
+      }
+    }
+    System.out.println("Running readers and writers together.");
+    if (stress()) {
+      passed++;
+    }
+
+    int total = ROUNDS + 1;
+    System.out.println("Your ConcurrentWUGraph test score is " + passed +
+                       " out of " + total + ".");
+  }
+}
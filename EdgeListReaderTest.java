@@ -0,0 +1,271 @@
+/* EdgeListReaderTest.java */
+
+/**
+ * The EdgeListReaderTest class tests the EdgeListReader class on small edge
+ * list and Matrix Market files, read with many chunk sizes so that lines
+ * are split across chunk boundaries in every possible place.
+ */
+
+import graph.*;
+import graphio.*;
+import java.io.*;
+
+public class EdgeListReaderTest {
+
+  /**
+   * The largest chunk size tried, in bytes.  Every size from 1 up is used,
+   * along with the default.
+   */
+  private static final int MAX_CHUNK = 40;
+
+  /**
+   * Writes "contents" to a new temporary file and returns it.
+   */
+  private static File write(String contents) throws IOException {
+    File file = File.createTempFile("edges", ".txt");
+    file.deleteOnExit();
+    OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(contents.getBytes("US-ASCII"));
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  /**
+   * Reads "file" with every chunk size.  If matrixMarket is true,
+   * readMatrixMarket() is used, and otherwise readEdgeList(); read() is
+   * also tried with the default chunk size.  Checks that each graph has the
+   * given vertices, and exactly the given edges, each {u, v, weight}.
+   */
+  private static boolean expect(String name, String contents,
+                                boolean matrixMarket, int[] vertices,
+                                int[][] edges) throws IOException {
+    File file = write(contents);
+    for (int chunk = 1; chunk <= MAX_CHUNK + 2; chunk++) {
+      EdgeListReader reader;
+      String how;
+      if (chunk <= MAX_CHUNK) {
+        reader = new EdgeListReader(chunk);
+        how = "with " + chunk + "-byte chunks";
+      } else {
+        reader = new EdgeListReader();
+        how = "with the default chunk size";
+      }
+      WUGraph g;
+      try {
+        if (chunk == MAX_CHUNK + 2) {
+          g = reader.read(file);
+          how = "with read()";
+        } else if (matrixMarket) {
+          g = reader.readMatrixMarket(file);
+        } else {
+          g = reader.readEdgeList(file);
+        }
+      } catch (IOException e) {
+        return KruskalTest.fail(name + ", read " + how + ", throws " + e);
+      }
+      if (!sameGraph(g, vertices, edges, name + ", read " + how)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean sameGraph(WUGraph g, int[] vertices, int[][] edges,
+                                   String when) {
+    if (g.vertexCount() != vertices.length) {
+      return KruskalTest.fail(when + ", has " + g.vertexCount() +
+                              " vertices but should have " + vertices.length +
+                              ".");
+    }
+    for (int i = 0; i < vertices.length; i++) {
+      if (!g.isVertex(Integer.valueOf(vertices[i]))) {
+        return KruskalTest.fail(when + ", is missing vertex " + vertices[i] +
+                                ".");
+      }
+      if (i > 0 && g.vertexId(Integer.valueOf(vertices[i])) <=
+                   g.vertexId(Integer.valueOf(vertices[i - 1]))) {
+        return KruskalTest.fail(when + ", doesn't number the vertices in " +
+                                "order.");
+      }
+    }
+    if (g.edgeCount() != edges.length) {
+      return KruskalTest.fail(when + ", has " + g.edgeCount() + " edges but " +
+                              "should have " + edges.length + ".");
+    }
+    for (int i = 0; i < edges.length; i++) {
+      Integer u = Integer.valueOf(edges[i][0]);
+      Integer v = Integer.valueOf(edges[i][1]);
+      if (!g.isEdge(u, v)) {
+        return KruskalTest.fail(when + ", is missing edge (" + u + ", " + v +
+                                ").");
+      }
+      if (g.weight(u, v) != edges[i][2]) {
+        return KruskalTest.fail(when + ", gives edge (" + u + ", " + v +
+                                ") weight " + g.weight(u, v) + " but should " +
+                                "give " + edges[i][2] + ".");
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks that reading "contents" with every chunk size throws an
+   * IOException that says where the problem is (if atByte is true).
+   */
+  private static boolean expectError(String name, String contents,
+                                     boolean matrixMarket, boolean atByte)
+    throws IOException {
+    File file = write(contents);
+    for (int chunk = 1; chunk <= MAX_CHUNK + 1; chunk++) {
+      EdgeListReader reader = chunk <= MAX_CHUNK ? new EdgeListReader(chunk)
+                                                 : new EdgeListReader();
+      try {
+        if (matrixMarket) {
+          reader.readMatrixMarket(file);
+        } else {
+          reader.readEdgeList(file);
+        }
+        return KruskalTest.fail(name + " should throw an IOException with " +
+                                chunk + "-byte chunks, but doesn't.");
+      } catch (IOException e) {
+        if (atByte && e.getMessage().indexOf("at byte") < 0) {
+          return KruskalTest.fail(name + " throws \"" + e.getMessage() +
+                                  "\", which doesn't say where the " +
+                                  "problem is.");
+        }
+      }
+    }
+    return true;
+  }
+
+  public static void main(String[] args) throws IOException {
+    int passed = 0;
+    int total = 0;
+
+    System.out.println("Running edge list reader test.");
+
+    System.out.println("Reading plain edge lists.");
+    total++;
+    if (expect("A plain edge list",
+               "1 2 5\n2 3 7\n3 1 -4\n",
+               false, new int[] {1, 2, 3},
+               new int[][] {{1, 2, 5}, {2, 3, 7}, {3, 1, -4}})) {
+      passed++;
+    }
+    total++;
+    if (expect("An edge list with CRLF line endings",
+               "1 2 5\r\n2 3 7\r\n\r\n3 4\r\n",
+               false, new int[] {1, 2, 3, 4},
+               new int[][] {{1, 2, 5}, {2, 3, 7}, {3, 4, 1}})) {
+      passed++;
+    }
+    total++;
+    if (expect("An edge list with commas and tabs",
+               "10,20,3\n20\t30\t4\n30 , 10 ,5\n",
+               false, new int[] {10, 20, 30},
+               new int[][] {{10, 20, 3}, {20, 30, 4}, {30, 10, 5}})) {
+      passed++;
+    }
+    total++;
+    if (expect("An edge list with comments and blank lines",
+               "# a comment\n% another\n\n  \n1 2 9\n# 3 4 5\n2 2 1 extra\n",
+               false, new int[] {1, 2},
+               new int[][] {{1, 2, 9}, {2, 2, 1}})) {
+      passed++;
+    }
+    total++;
+    if (expect("An edge list with decimal weights and no final newline",
+               "1 2 2.5\n2 3 1e3\n3 4 -0.4\n4 5 1.25E1\n5 6 +7",
+               false, new int[] {1, 2, 3, 4, 5, 6},
+               new int[][] {{1, 2, 3}, {2, 3, 1000}, {3, 4, 0},
+                            {4, 5, 13}, {5, 6, 7}})) {
+      passed++;
+    }
+    total++;
+    if (expect("An edge list listing an edge twice",
+               "1 2 5\n2 1 8\n",
+               false, new int[] {1, 2},
+               new int[][] {{1, 2, 8}})) {
+      passed++;
+    }
+    total++;
+    if (expect("An edge list with widely spread vertex numbers",
+               "-7 1000000000 3\n1000000000 42 4\n",
+               false, new int[] {-7, 42, 1000000000},
+               new int[][] {{-7, 1000000000, 3}, {1000000000, 42, 4}})) {
+      passed++;
+    }
+    total++;
+    if (expect("An empty edge list", "# nothing here\n", false,
+               new int[0], new int[0][])) {
+      passed++;
+    }
+
+    System.out.println("Reading Matrix Market files.");
+    total++;
+    if (expect("A Matrix Market integer file",
+               "%%MatrixMarket matrix coordinate integer general\n" +
+               "% a comment\n\n4 3 3\n1 2 10\n3 1 -2\n2 2 6\n",
+               true, new int[] {1, 2, 3, 4},
+               new int[][] {{1, 2, 10}, {3, 1, -2}, {2, 2, 6}})) {
+      passed++;
+    }
+    total++;
+    if (expect("A Matrix Market pattern file with CRLF line endings",
+               "%%MatrixMarket matrix coordinate pattern symmetric\r\n" +
+               "3 3 2\r\n1 2\r\n3 2\r\n",
+               true, new int[] {1, 2, 3},
+               new int[][] {{1, 2, 1}, {3, 2, 1}})) {
+      passed++;
+    }
+    total++;
+    if (expect("A Matrix Market real file",
+               "%%MatrixMarket matrix coordinate real general\n" +
+               "2 5 2\n1 5 2.6\n2 3 -1.5e0\n",
+               true, new int[] {1, 2, 3, 4, 5},
+               new int[][] {{1, 5, 3}, {2, 3, -2}})) {
+      passed++;
+    }
+
+    System.out.println("Reading malformed files.");
+    String[] badLists = {
+      "1 2 5\nx 3 4\n",
+      "1 2 5\n3\n",
+      "1 2 5\n3 4 1e\n",
+      "1 2 5\n3 4 abc\n",
+      "1 2 5\n3 99999999999 1\n",
+      "1 2 5\n3 4 99999999999\n",
+      "1 2x 5\n"
+    };
+    for (int i = 0; i < badLists.length; i++) {
+      total++;
+      if (expectError("Malformed edge list " + i, badLists[i], false, true)) {
+        passed++;
+      }
+    }
+    String[] badMatrices = {
+      "%%MatrixMarket matrix array real general\n2 2\n1\n2\n3\n4\n",
+      "%%MatrixMarket matrix coordinate complex general\n1 1 1\n1 1 1 0\n",
+      "%%MatrixMarket matrix coordinate\n1 1 1\n1 1 1\n",
+      "%%MatrixMarket matrix coordinate integer general\n2 2\n",
+      "%%MatrixMarket matrix coordinate integer general\n2 2 2\n1 2 3\n",
+      "%%MatrixMarket matrix coordinate integer general\n2 2 1\n1 3 3\n",
+      "%%MatrixMarket matrix coordinate integer general\n2 2 1\n0 1 3\n",
+      "%%MatrixMarket matrix coordinate integer general\n2 2 1\n1 x 3\n",
+      "%%MatrixMarket matrix coordinate integer general\n"
+    };
+    for (int i = 0; i < badMatrices.length; i++) {
+      total++;
+      if (expectError("Malformed Matrix Market file " + i, badMatrices[i],
+                      true, false)) {
+        passed++;
+      }
+    }
+
+    System.out.println("Your EdgeListReader test score is " + passed +
+                       " out of " + total + ".");
+  }
+}
@@ -0,0 +1,547 @@
+/* GraphBenchmark.java */
+
+/**
+ * The GraphBenchmark class times the graph, dict, set and graphalg packages
+ * on inputs much larger than the tests use.
+ *
+ * Each benchmark builds its input in setup(), which is not timed, and then
+ * does "ops" operations in run(), which is.  A benchmark is run WARMUP times
+ * so the JIT compiler settles down, then MEASURE more times; the median and
+ * best times per operation are printed.  run() returns a number computed
+ * from its work, which is added to "sink" so the compiler can't throw the
+ * work away.
+ *
+ * Usage:  java GraphBenchmark [name ...]
+ * With no arguments every benchmark runs; otherwise only the benchmarks
+ * whose names contain one of the arguments (e.g. "java GraphBenchmark
+ * HashTableChained Kruskal").  Run with a large heap (e.g. -Xmx2g) for the
+ * bigger inputs.
+ */
+
+import dict.*;
+import graph.*;
+import graphalg.*;
+import set.*;
+import java.util.*;
+
+public class GraphBenchmark {
+
+  private static final int WARMUP = 3;
+  private static final int MEASURE = 5;
+  private static final long SEED = 61;
+
+  /**
+   * HashTableChained aims for a load factor of about 0.77 for the size
+   * estimate it is given.
+   */
+  private static final double CHAINED_LOAD = 0.77;
+
+  private static long sink;
+
+  /**
+   * A Benchmark is one timed piece of work.
+   */
+  private abstract static class Benchmark {
+    String name;
+    int ops;
+
+    Benchmark(String name, int ops) {
+      this.name = name;
+      this.ops = ops;
+    }
+
+    void setup() {
+    }
+
+    abstract long run();
+  }
+
+  public static void main(String[] args) {
+    List<Benchmark> all = new ArrayList<Benchmark>();
+    addGraphBenchmarks(all, 10000, 100000);
+    addGraphBenchmarks(all, 100000, 1000000);
+    int[] sizes = {1000, 100000, 1000000};
+    double[] loads = {0.5, 1.0};
+    for (int i = 0; i < sizes.length; i++) {
+      for (int j = 0; j < loads.length; j++) {
+        addDictBenchmarks(all, sizes[i], loads[j]);
+      }
+    }
+    addSetBenchmarks(all, 1000000);
+    addSortBenchmarks(all, 1000000);
+    addMstBenchmarks(all, "sparse", 100000, 400000);
+    addMstBenchmarks(all, "dense", 1000, 250000);
+    addPathBenchmarks(all, 300, 100);
+
+    System.out.println(String.format("%-50s %10s %14s %14s",
+                                     "benchmark", "ops", "median ns/op",
+                                     "best ns/op"));
+    for (Benchmark b : all) {
+      if (selected(b.name, args)) {
+        measure(b);
+      }
+    }
+    System.out.println("(checksum " + sink + ")");
+  }
+
+  private static boolean selected(String name, String[] filters) {
+    if (filters.length == 0) {
+      return true;
+    }
+    for (int i = 0; i < filters.length; i++) {
+      if (name.indexOf(filters[i]) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void measure(Benchmark b) {
+    long[] times = new long[MEASURE];
+    for (int i = 0; i < WARMUP + MEASURE; i++) {
+      b.setup();
+      long start = System.nanoTime();
+      sink += b.run();
+      long time = System.nanoTime() - start;
+      if (i >= WARMUP) {
+        times[i - WARMUP] = time;
+      }
+    }
+    Arrays.sort(times);
+    System.out.println(String.format("%-50s %10d %14.1f %14.1f", b.name,
+                                     b.ops, (double) times[MEASURE / 2] / b.ops,
+                                     (double) times[0] / b.ops));
+  }
+
+  /**
+   * Returns m random pairs of vertex numbers below n, as {u[], v[]}.
+   */
+  private static int[][] randomPairs(int n, int m, Random random) {
+    int[][] pairs = new int[2][m];
+    for (int i = 0; i < m; i++) {
+      pairs[0][i] = random.nextInt(n);
+      pairs[1][i] = random.nextInt(n);
+    }
+    return pairs;
+  }
+
+  private static Integer[] vertices(int n) {
+    Integer[] vertices = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      vertices[i] = Integer.valueOf(i);
+    }
+    return vertices;
+  }
+
+  private static WUGraph randomGraph(Integer[] vertices, int[][] pairs,
+                                     int[] weights) {
+    WUGraph g = new WUGraph(vertices.length, pairs[0].length);
+    for (int i = 0; i < vertices.length; i++) {
+      g.addVertex(vertices[i]);
+    }
+    for (int i = 0; i < pairs[0].length; i++) {
+      g.addEdge(vertices[pairs[0][i]], vertices[pairs[1][i]], weights[i]);
+    }
+    return g;
+  }
+
+  private static int[] randomInts(int m, int bound, Random random) {
+    int[] a = new int[m];
+    for (int i = 0; i < m; i++) {
+      a[i] = random.nextInt(bound);
+    }
+    return a;
+  }
+
+  // WUGraph:  addEdge, isEdge, getNeighbors, removeEdge.
+
+  private static void addGraphBenchmarks(List<Benchmark> all, final int n,
+                                         final int m) {
+    Random random = new Random(SEED);
+    final Integer[] vertices = vertices(n);
+    final int[][] pairs = randomPairs(n, m, random);
+    final int[][] probes = randomPairs(n, m, random);
+    final int[] weights = randomInts(m, 1000, random);
+    final String size = " V=" + n + " E=" + m;
+
+    all.add(new Benchmark("WUGraph.addEdge" + size, m) {
+      WUGraph g;
+
+      void setup() {
+        g = new WUGraph();
+        for (int i = 0; i < n; i++) {
+          g.addVertex(vertices[i]);
+        }
+      }
+
+      long run() {
+        for (int i = 0; i < m; i++) {
+          g.addEdge(vertices[pairs[0][i]], vertices[pairs[1][i]], weights[i]);
+        }
+        return g.edgeCount();
+      }
+    });
+
+    all.add(new Benchmark("WUGraph.isEdge" + size, m) {
+      WUGraph g;
+
+      void setup() {
+        if (g == null) {
+          g = randomGraph(vertices, pairs, weights);
+        }
+      }
+
+      long run() {
+        long found = 0;
+        for (int i = 0; i < m; i++) {
+          if (g.isEdge(vertices[probes[0][i]], vertices[probes[1][i]])) {
+            found++;
+          }
+        }
+        return found;
+      }
+    });
+
+    all.add(new Benchmark("WUGraph.getNeighbors" + size, n) {
+      WUGraph g;
+
+      void setup() {
+        if (g == null) {
+          g = randomGraph(vertices, pairs, weights);
+        }
+      }
+
+      long run() {
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+          Neighbors neighbors = g.getNeighbors(vertices[i]);
+          if (neighbors != null) {
+            total += neighbors.neighborList.length;
+          }
+        }
+        return total;
+      }
+    });
+
+    all.add(new Benchmark("WUGraph.removeEdge" + size, m) {
+      WUGraph g;
+
+      void setup() {
+        g = randomGraph(vertices, pairs, weights);
+      }
+
+      long run() {
+        for (int i = 0; i < m; i++) {
+          g.removeEdge(vertices[pairs[0][i]], vertices[pairs[1][i]]);
+        }
+        return g.edgeCount();
+      }
+    });
+  }
+
+  // HashTableChained:  insert, find, remove, at a given load factor.
+
+  private static void addDictBenchmarks(List<Benchmark> all, final int n,
+                                        double load) {
+    Random random = new Random(SEED);
+    final Integer[] keys = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      keys[i] = Integer.valueOf(random.nextInt());
+    }
+    final int estimate = Math.max(1, (int) (n * CHAINED_LOAD / load));
+    final String size = " n=" + n + " load=" + load;
+
+    all.add(new Benchmark("HashTableChained.insert" + size, n) {
+      HashTableChained table;
+
+      void setup() {
+        table = new HashTableChained(estimate);
+      }
+
+      long run() {
+        for (int i = 0; i < n; i++) {
+          table.insert(keys[i], keys[i]);
+        }
+        return table.size();
+      }
+    });
+
+    all.add(new Benchmark("HashTableChained.find" + size, n) {
+      HashTableChained table;
+
+      void setup() {
+        if (table == null) {
+          table = new HashTableChained(estimate);
+          for (int i = 0; i < n; i++) {
+            table.insert(keys[i], keys[i]);
+          }
+        }
+      }
+
+      long run() {
+        long found = 0;
+        for (int i = 0; i < n; i++) {
+          if (table.find(keys[i]) != null) {
+            found++;
+          }
+        }
+        return found;
+      }
+    });
+
+    all.add(new Benchmark("HashTableChained.remove" + size, n) {
+      HashTableChained table;
+
+      void setup() {
+        table = new HashTableChained(estimate);
+        for (int i = 0; i < n; i++) {
+          table.insert(keys[i], keys[i]);
+        }
+      }
+
+      long run() {
+        for (int i = 0; i < n; i++) {
+          table.remove(keys[i]);
+        }
+        return table.size();
+      }
+    });
+  }
+
+  // DisjointSets:  union (by find) and find.
+
+  private static void addSetBenchmarks(List<Benchmark> all, final int n) {
+    Random random = new Random(SEED);
+    final int[][] pairs = randomPairs(n, n, random);
+    final String size = " n=" + n;
+
+    all.add(new Benchmark("DisjointSets.unionByFind" + size, n) {
+      DisjointSets sets;
+
+      void setup() {
+        sets = new DisjointSets(n);
+      }
+
+      long run() {
+        long unions = 0;
+        for (int i = 0; i < n; i++) {
+          if (sets.unionByFind(pairs[0][i], pairs[1][i])) {
+            unions++;
+          }
+        }
+        return unions;
+      }
+    });
+
+    all.add(new Benchmark("DisjointSets.find" + size, n) {
+      DisjointSets sets;
+
+      void setup() {
+        sets = new DisjointSets(n);
+        for (int i = 0; i < n; i++) {
+          sets.unionByFind(pairs[0][i], pairs[1][i]);
+        }
+      }
+
+      long run() {
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+          total += sets.find(i);
+        }
+        return total;
+      }
+    });
+  }
+
+  // EdgeSort:  quicksort on EdgeK objects against sort on int arrays.
+
+  private static void addSortBenchmarks(List<Benchmark> all, final int m) {
+    Random random = new Random(SEED);
+    final int[] weights = randomInts(m, 1 << 30, random);
+    final String size = " m=" + m;
+
+    all.add(new Benchmark("EdgeSort.quicksort" + size, m) {
+      EdgeK[] edges;
+
+      void setup() {
+        edges = new EdgeK[m];
+        for (int i = 0; i < m; i++) {
+          edges[i] = new EdgeK(i, i, weights[i]);
+        }
+      }
+
+      long run() {
+        EdgeSort.quicksort(edges);
+        return edges.length;
+      }
+    });
+
+    all.add(new Benchmark("EdgeSort.sort" + size, m) {
+      int[] keys;
+      int[] items;
+
+      void setup() {
+        keys = weights.clone();
+        items = new int[m];
+        for (int i = 0; i < m; i++) {
+          items[i] = i;
+        }
+      }
+
+      long run() {
+        EdgeSort.sort(keys, items);
+        return items[0];
+      }
+    });
+
+    all.add(new Benchmark("EdgeSort.parallelSort" + size, m) {
+      int[] keys;
+      int[] items;
+
+      void setup() {
+        keys = weights.clone();
+        items = new int[m];
+        for (int i = 0; i < m; i++) {
+          items[i] = i;
+        }
+      }
+
+      long run() {
+        EdgeSort.parallelSort(keys, items);
+        return items[0];
+      }
+    });
+  }
+
+  // Point-to-point shortest paths on a square grid with random weights.
+
+  private static void addPathBenchmarks(List<Benchmark> all, int side,
+                                        int queries) {
+    Random random = new Random(SEED);
+    final String size = " grid " + side + "x" + side;
+
+    all.add(new PathBenchmark("ShortestPaths.distance" + size, side, queries,
+                              random) {
+      long run() {
+        long total = 0;
+        for (int i = 0; i < ops; i++) {
+          total += ShortestPaths.distance(g, vertices[ends[0][i]],
+                                          vertices[ends[1][i]]);
+        }
+        return total;
+      }
+    });
+    all.add(new PathBenchmark("ShortestPaths.bidirectionalDistance" + size,
+                              side, queries, random) {
+      long run() {
+        long total = 0;
+        for (int i = 0; i < ops; i++) {
+          total += ShortestPaths.bidirectionalDistance(g, vertices[ends[0][i]],
+                                                       vertices[ends[1][i]]);
+        }
+        return total;
+      }
+    });
+  }
+
+  /**
+   * A PathBenchmark builds a side-by-side grid graph g once, the first time
+   * it is set up, and asks ops queries between the random vertex pairs in
+   * ends.
+   */
+  private abstract static class PathBenchmark extends Benchmark {
+    int side;
+    Integer[] vertices;
+    int[][] ends;
+    WUGraph g;
+
+    PathBenchmark(String name, int side, int queries, Random random) {
+      super(name, queries);
+      this.side = side;
+      vertices = vertices(side * side);
+      ends = randomPairs(side * side, queries, random);
+    }
+
+    void setup() {
+      if (g != null) {
+        return;
+      }
+      Random weights = new Random(SEED);
+      int n = side * side;
+      g = new WUGraph(n, 2 * n);
+      for (int i = 0; i < n; i++) {
+        g.addVertex(vertices[i]);
+      }
+      for (int i = 0; i < n; i++) {
+        if (i % side + 1 < side) {
+          g.addEdge(vertices[i], vertices[i + 1], 1 + weights.nextInt(9));
+        }
+        if (i + side < n) {
+          g.addEdge(vertices[i], vertices[i + side], 1 + weights.nextInt(9));
+        }
+      }
+    }
+  }
+
+  // Minimum spanning trees on random graphs.
+
+  private static void addMstBenchmarks(List<Benchmark> all, String kind,
+                                       int n, int m) {
+    Random random = new Random(SEED);
+    final Integer[] vertices = vertices(n);
+    final int[][] pairs = randomPairs(n, m, random);
+    final int[] weights = randomInts(m, 1000, random);
+    final String size = " " + kind + " V=" + n + " E=" + m;
+
+    all.add(new MstBenchmark("Kruskal.minSpanTree" + size, vertices, pairs,
+                             weights) {
+      long run() {
+        return Kruskal.minSpanTree(g).edgeCount();
+      }
+    });
+    all.add(new MstBenchmark("FilterKruskal.minSpanTree" + size, vertices,
+                             pairs, weights) {
+      long run() {
+        return FilterKruskal.minSpanTree(g).edgeCount();
+      }
+    });
+    all.add(new MstBenchmark("Prim.minSpanTree" + size, vertices, pairs,
+                             weights) {
+      long run() {
+        return Prim.minSpanTree(g).edgeCount();
+      }
+    });
+    all.add(new MstBenchmark("Boruvka.minSpanTree" + size, vertices, pairs,
+                             weights) {
+      long run() {
+        return Boruvka.minSpanTree(g).edgeCount();
+      }
+    });
+  }
+
+  /**
+   * An MstBenchmark builds its graph g once, the first time it is set up.
+   * ops is the number of edges.
+   */
+  private abstract static class MstBenchmark extends Benchmark {
+    Integer[] vertices;
+    int[][] pairs;
+    int[] weights;
+    WUGraph g;
+
+    MstBenchmark(String name, Integer[] vertices, int[][] pairs,
+                 int[] weights) {
+      super(name, weights.length);
+      this.vertices = vertices;
+      this.pairs = pairs;
+      this.weights = weights;
+    }
+
+    void setup() {
+      if (g == null) {
+        g = randomGraph(vertices, pairs, weights);
+      }
+    }
+  }
+
+}
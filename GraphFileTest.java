@@ -0,0 +1,422 @@
+/* GraphFileTest.java */
+
+/**
+ * The GraphFileTest class tests the GraphFile and MappedGraph classes.  Each
+ * graph is written with GraphFile.write() and mapped back with
+ * GraphFile.map(), and every answer of the MappedGraph is checked against
+ * the CsrGraph that g.freeze() returns.  The bytes of the file are checked
+ * too, against the layout documented in GraphFile; since the test restates
+ * that layout, a change to the format has to change the test as well.
+ */
+
+import graph.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class GraphFileTest {
+
+  /**
+   * The kinds of vertex record, as GraphFile documents them.
+   */
+
+  private static final byte VERTEX_OBJECT = 0;
+  private static final byte VERTEX_INTEGER = 1;
+  private static final byte VERTEX_LONG = 2;
+  private static final byte VERTEX_STRING = 3;
+
+  /**
+   * A Point is a vertex object that is none of Integer, Long and String, so
+   * it is saved with Java serialization.
+   */
+  private static class Point implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private int x;
+    private int y;
+
+    private Point(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+
+    public boolean equals(Object o) {
+      return o instanceof Point && ((Point) o).x == x && ((Point) o).y == y;
+    }
+
+    public int hashCode() {
+      return 31 * x + y;
+    }
+
+    public String toString() {
+      return "(" + x + ", " + y + ")";
+    }
+  }
+
+  /**
+   * Returns a graph whose vertices are the objects in "vertices", with m
+   * random edges of random weights, plus a self-edge on every seventh
+   * vertex.
+   */
+  private static WUGraph graphOn(Object[] vertices, int m, Random random) {
+    WUGraph g = new WUGraph();
+    for (int i = 0; i < vertices.length; i++) {
+      g.addVertex(vertices[i]);
+    }
+    if (vertices.length == 0) {
+      return g;
+    }
+    for (int i = 0; i < m; i++) {
+      g.addEdge(vertices[random.nextInt(vertices.length)],
+                vertices[random.nextInt(vertices.length)],
+                random.nextInt(2001) - 1000);
+    }
+    for (int i = 0; i < vertices.length; i += 7) {
+      g.addEdge(vertices[i], vertices[i], i);
+    }
+    return g;
+  }
+
+  /**
+   * Removes every "step"-th vertex of g, so that the vertices after them
+   * are given new ids.
+   */
+  private static void removeSome(WUGraph g, int step) {
+    Object[] vertices = g.getVertices();
+    for (int i = 0; i < vertices.length; i += step) {
+      g.removeVertex(vertices[i]);
+    }
+  }
+
+  /**
+   * Checks that the adjacency arrays of m and c agree:  every degree(),
+   * edgeStart(), edgeEnd(), target() and weight().
+   */
+  private static boolean sameEdges(MappedGraph m, CsrGraph c, String name) {
+    if (m.vertexCount() != c.vertexCount() ||
+        m.edgeCount() != c.edgeCount()) {
+      return KruskalTest.fail(name + ":  the mapped graph has " +
+                              m.vertexCount() + " vertices and " +
+                              m.edgeCount() + " edges, but should have " +
+                              c.vertexCount() + " and " + c.edgeCount() +
+                              ".");
+    }
+    for (int i = 0; i < c.vertexCount(); i++) {
+      if (m.degree(i) != c.degree(i) || m.edgeStart(i) != c.edgeStart(i) ||
+          m.edgeEnd(i) != c.edgeEnd(i)) {
+        return KruskalTest.fail(name + ":  vertex " + i + " has degree " +
+                                m.degree(i) + " in slots " + m.edgeStart(i) +
+                                "..." + m.edgeEnd(i) + " but should have " +
+                                c.degree(i) + " in " + c.edgeStart(i) +
+                                "..." + c.edgeEnd(i) + ".");
+      }
+      for (int s = c.edgeStart(i); s < c.edgeEnd(i); s++) {
+        if (m.target(s) != c.target(s) || m.weight(s) != c.weight(s)) {
+          return KruskalTest.fail(name + ":  slot " + s + " holds (" +
+                                  m.target(s) + ", " + m.weight(s) +
+                                  ") but should hold (" + c.target(s) +
+                                  ", " + c.weight(s) + ").");
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks that m's vertex(i) is c's vertex(i), and that m's id() of it is
+   * i, for every vertex.  If "idFirst" is true, id() is called before any
+   * vertex(); otherwise half the vertices are read with vertex() first, so
+   * that id() has to read the rest and keep the ones already read.
+   */
+  private static boolean sameVertices(MappedGraph m, CsrGraph c,
+                                      boolean idFirst, String name) {
+    int n = c.vertexCount();
+    Object[] early = new Object[n];
+    if (!idFirst) {
+      for (int i = 0; i < n; i += 2) {
+        early[i] = m.vertex(i);
+        if (!c.vertex(i).equals(early[i])) {
+          return KruskalTest.fail(name + ":  vertex(" + i + ") returns " +
+                                  early[i] + " but should return " +
+                                  c.vertex(i) + ".");
+        }
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      if (m.id(c.vertex(i)) != i) {
+        return KruskalTest.fail(name + ":  id(" + c.vertex(i) + ") " +
+                                "returns " + m.id(c.vertex(i)) +
+                                " but should return " + i + ".");
+      }
+    }
+    if (m.id(new Point(-1, -1)) != -1 || m.id("not a vertex") != -1) {
+      return KruskalTest.fail(name + ":  id() of an object that isn't a " +
+                              "vertex doesn't return -1.");
+    }
+    for (int i = 0; i < n; i++) {
+      Object v = m.vertex(i);
+      if (!c.vertex(i).equals(v) || v.getClass() != c.vertex(i).getClass()) {
+        return KruskalTest.fail(name + ":  after id(), vertex(" + i + ") " +
+                                "returns " + v + " but should return " +
+                                c.vertex(i) + ".");
+      }
+      if (early[i] != null && early[i] != v) {
+        return KruskalTest.fail(name + ":  id() replaced vertex " + i +
+                                ", already read by vertex(), with a new " +
+                                "object.");
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks the bytes of the graph file against c:  the header, the offsets,
+   * targets and weights arrays at the places GraphFile says they start, the
+   * padding, the positions table, and each vertex's typed record.
+   */
+  private static boolean sameBytes(File file, CsrGraph c, String name)
+    throws IOException {
+    byte[] bytes = new byte[(int) file.length()];
+    DataInputStream in = new DataInputStream(new FileInputStream(file));
+    try {
+      in.readFully(bytes);
+    } finally {
+      in.close();
+    }
+    ByteBuffer b = ByteBuffer.wrap(bytes);
+    int n = c.vertexCount();
+    int slots = n == 0 ? 0 : c.edgeEnd(n - 1);
+    if (b.getInt(0) != GraphFile.MAGIC || b.getInt(4) != GraphFile.VERSION ||
+        b.getInt(8) != n || b.getInt(12) != c.edgeCount() ||
+        b.getInt(16) != slots || b.getInt(20) != 0 || b.getLong(24) != 0) {
+      return KruskalTest.fail(name + ":  the file's header is wrong.");
+    }
+
+    long offsetsStart = 32;
+    long targetsStart = offsetsStart + 4L * (n + 1);
+    long weightsStart = targetsStart + 4L * slots;
+    long end = weightsStart + 4L * slots;
+    long positionsStart = (end + 7) / 8 * 8;
+    long vertexStart = positionsStart + 8L * (n + 1);
+    for (int i = 0; i <= n; i++) {
+      int expected = i < n ? c.edgeStart(i) : slots;
+      if (b.getInt((int) (offsetsStart + 4L * i)) != expected) {
+        return KruskalTest.fail(name + ":  offsets[" + i + "] in the file " +
+                                "isn't " + expected + ".");
+      }
+    }
+    for (int s = 0; s < slots; s++) {
+      if (b.getInt((int) (targetsStart + 4L * s)) != c.target(s) ||
+          b.getInt((int) (weightsStart + 4L * s)) != c.weight(s)) {
+        return KruskalTest.fail(name + ":  slot " + s + " in the file " +
+                                "doesn't hold (" + c.target(s) + ", " +
+                                c.weight(s) + ").");
+      }
+    }
+    if (positionsStart != end && b.getInt((int) end) != 0) {
+      return KruskalTest.fail(name + ":  the padding before the positions " +
+                              "isn't zero.");
+    }
+
+    long last = b.getLong((int) positionsStart);
+    if (last != 0) {
+      return KruskalTest.fail(name + ":  the first vertex record doesn't " +
+                              "start at position 0.");
+    }
+    for (int i = 0; i < n; i++) {
+      long next = b.getLong((int) (positionsStart + 8L * (i + 1)));
+      int at = (int) (vertexStart + last);
+      int length = (int) (next - last);
+      String problem = checkRecord(b, at, length, c.vertex(i));
+      if (problem != null) {
+        return KruskalTest.fail(name + ":  the record of vertex " + i + " (" +
+                                c.vertex(i) + ") " + problem + ".");
+      }
+      last = next;
+    }
+    if (vertexStart + last != bytes.length) {
+      return KruskalTest.fail(name + ":  the file is " + bytes.length +
+                              " bytes long, but its records end at " +
+                              (vertexStart + last) + ".");
+    }
+    return true;
+  }
+
+  /**
+   * Checks the record "length" bytes long at "at" in b against "vertex".
+   * Returns null if it's right, or else what is wrong with it.
+   */
+  private static String checkRecord(ByteBuffer b, int at, int length,
+                                    Object vertex) throws IOException {
+    if (length < 1 || at + length > b.limit()) {
+      return "has length " + length;
+    }
+    byte kind = b.get(at);
+    if (vertex instanceof Integer) {
+      if (kind != VERTEX_INTEGER || length != 5 ||
+          b.getInt(at + 1) != ((Integer) vertex).intValue()) {
+        return "isn't a five-byte Integer record";
+      }
+    } else if (vertex instanceof Long) {
+      if (kind != VERTEX_LONG || length != 9 ||
+          b.getLong(at + 1) != ((Long) vertex).longValue()) {
+        return "isn't a nine-byte Long record";
+      }
+    } else if (vertex instanceof String) {
+      byte[] utf8 = ((String) vertex).getBytes(StandardCharsets.UTF_8);
+      if (kind != VERTEX_STRING || length != utf8.length + 1 ||
+          !new String(b.array(), at + 1, length - 1,
+                      StandardCharsets.UTF_8).equals(vertex)) {
+        return "isn't the string's UTF-8 bytes";
+      }
+    } else {
+      if (kind != VERTEX_OBJECT) {
+        return "isn't a serialized object";
+      }
+      ObjectInputStream objects = new ObjectInputStream(
+        new ByteArrayInputStream(b.array(), at + 1, length - 1));
+      try {
+        if (!vertex.equals(objects.readObject())) {
+          return "doesn't hold the object";
+        }
+      } catch (ClassNotFoundException e) {
+        return "can't be read:  " + e;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Writes g to a file, maps it twice, and checks both mappings and the
+   * file's bytes against g.freeze().
+   */
+  private static boolean roundTrip(WUGraph g, String name)
+    throws IOException {
+    CsrGraph c = g.freeze();
+    File file = File.createTempFile("graph", ".wug");
+    file.deleteOnExit();
+    try {
+      GraphFile.write(g, file);
+      if (!sameBytes(file, c, name)) {
+        return false;
+      }
+      MappedGraph m = GraphFile.map(file);
+      try {
+        if (!sameEdges(m, c, name) ||
+            !sameVertices(m, c, false, name + ", vertex() first")) {
+          return false;
+        }
+      } finally {
+        m.close();
+      }
+      m = GraphFile.map(file);
+      try {
+        if (!sameVertices(m, c, true, name + ", id() first") ||
+            !sameEdges(m, c, name + ", id() first")) {
+          return false;
+        }
+      } finally {
+        m.close();
+      }
+    } finally {
+      file.delete();
+    }
+    return true;
+  }
+
+  public static void main(String[] args) throws IOException {
+    int passed = 0;
+    int total = 0;
+    Random random = new Random(61);
+
+    List<WUGraph> graphs = new ArrayList<WUGraph>();
+    List<String> names = new ArrayList<String>();
+
+    graphs.add(new WUGraph());
+    names.add("An empty graph");
+
+    Object[] one = { Integer.valueOf(7) };
+    graphs.add(graphOn(one, 0, random));
+    names.add("A graph of one vertex and one self-edge");
+
+    WUGraph emptied = graphOn(one, 0, random);
+    removeSome(emptied, 1);
+    graphs.add(emptied);
+    names.add("A graph whose only vertex was removed");
+
+    Object[] ints = new Object[300];
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = Integer.valueOf(i % 2 == 0 ? i : -i * 1000003);
+    }
+    graphs.add(graphOn(ints, 900, random));
+    names.add("A graph with Integer vertices");
+
+    Object[] longs = new Object[301];
+    for (int i = 0; i < longs.length; i++) {
+      longs[i] = Long.valueOf(i % 3 == 0 ? i : (long) i << 40 | i);
+    }
+    longs[0] = Long.valueOf(Long.MIN_VALUE);
+    graphs.add(graphOn(longs, 1000, random));
+    names.add("A graph with Long vertices");
+
+    Object[] strings = new Object[250];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = "vertex " + i;
+    }
+    strings[0] = "";
+    strings[1] = "Gr\u00fc\u00dfe";
+    strings[2] = "\u65e5\u672c\u8a9e \ud83d\ude00";
+    graphs.add(graphOn(strings, 700, random));
+    names.add("A graph with String vertices");
+
+    Object[] points = new Object[120];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = new Point(i, -i);
+    }
+    graphs.add(graphOn(points, 400, random));
+    names.add("A graph with Serializable vertices");
+
+    Object[] mixed = new Object[400];
+    for (int i = 0; i < mixed.length; i++) {
+      switch (i % 4) {
+      case 0:
+        mixed[i] = Integer.valueOf(i);
+        break;
+      case 1:
+        mixed[i] = Long.valueOf(i);
+        break;
+      case 2:
+        mixed[i] = "v" + i;
+        break;
+      default:
+        mixed[i] = new Point(i, i);
+        break;
+      }
+    }
+    WUGraph shuffled = graphOn(mixed, 1600, random);
+    removeSome(shuffled, 3);
+    graphs.add(shuffled);
+    names.add("A mixed graph whose ids were moved by removeVertex()");
+
+    WUGraph random1 = KruskalTest.randomGraph(random, 1001, 5000, -50, 50);
+    removeSome(random1, 5);
+    graphs.add(random1);
+    names.add("A random graph whose ids were moved by removeVertex()");
+
+    System.out.println("Running graph file test.");
+    for (int i = 0; i < graphs.size(); i++) {
+      System.out.println("Writing and mapping:  " + names.get(i) + ".");
+      total++;
+      try {
+        if (roundTrip(graphs.get(i), names.get(i))) {
+          passed++;
+        }
+      } catch (RuntimeException e) {
+        KruskalTest.fail(names.get(i) + ":  " + e);
+      }
+    }
+
+    System.out.println("Your graph file test score is " + passed + " out of " +
+                       total + ".");
+  }
+}
@@ -0,0 +1,375 @@
+/* HashTableOpenTest.java */
+
+/**
+ * The HashTableOpenTest class tests how the HashTableOpen class grows and
+ * shrinks, and checks its contents against a java.util.HashMap throughout.
+ * It also checks that WUGraph.trimToSize() gives back the memory of a
+ * graph's tables without changing the graph.
+ */
+
+import dict.*;
+import graph.*;
+import java.util.*;
+
+public class HashTableOpenTest {
+
+  /**
+   * Checks that "table" holds exactly the keys of "oracle", each with the
+   * same value, and that entryAt() visits each of them exactly once.
+   */
+  public static boolean sameContents(HashTableOpen table,
+                                     Map<Integer, Integer> oracle,
+                                     String when) {
+    if (table.size() != oracle.size()) {
+      return KruskalTest.fail(when + ", size() is " + table.size() +
+                              " but should be " + oracle.size() + ".");
+    }
+    for (Map.Entry<Integer, Integer> e : oracle.entrySet()) {
+      Entry found = table.find(e.getKey());
+      if (found == null || !found.value().equals(e.getValue())) {
+        return KruskalTest.fail(when + ", find(" + e.getKey() + ") " +
+                                "doesn't return the entry inserted.");
+      }
+    }
+    Set<Object> seen = new HashSet<Object>();
+    for (int i = 0; i < table.capacity(); i++) {
+      Entry e = table.entryAt(i);
+      if (e != null &&
+          (!oracle.containsKey(e.key()) || !seen.add(e.key()))) {
+        return KruskalTest.fail(when + ", entryAt() returns key " + e.key() +
+                                " more than once, or after it was removed.");
+      }
+    }
+    if (seen.size() != oracle.size()) {
+      return KruskalTest.fail(when + ", entryAt() visits " + seen.size() +
+                              " entries but there are " + oracle.size() +
+                              ".");
+    }
+    return true;
+  }
+
+  /**
+   * Fills a table, then empties it again, and checks that it shrinks as it
+   * empties, but never below the length it was constructed with.
+   */
+  private static boolean shrinks(int sizeEstimate) {
+    HashTableOpen table = new HashTableOpen(sizeEstimate);
+    Map<Integer, Integer> oracle = new HashMap<Integer, Integer>();
+    int initial = table.capacity();
+    int n = 20000;
+    for (int i = 0; i < n; i++) {
+      table.insert(Integer.valueOf(i), Integer.valueOf(-i));
+      oracle.put(Integer.valueOf(i), Integer.valueOf(-i));
+    }
+    int peak = table.capacity();
+    for (int i = 0; i < n - 100; i++) {
+      table.remove(Integer.valueOf(i));
+      oracle.remove(Integer.valueOf(i));
+      if (table.capacity() < initial) {
+        return KruskalTest.fail("A table constructed with " + initial +
+                                " slots shrinks to " + table.capacity() +
+                                ".");
+      }
+    }
+    String when = "After removing all but 100 of " + n + " entries";
+    if (!sameContents(table, oracle, when)) {
+      return false;
+    }
+    if (table.capacity() > Math.max(initial, 1024)) {
+      return KruskalTest.fail(when + ", the table still has " +
+                              table.capacity() + " slots (at its peak, " +
+                              peak + ").");
+    }
+    for (int i = n - 100; i < n; i++) {
+      table.remove(Integer.valueOf(i));
+    }
+    if (table.capacity() != initial) {
+      return KruskalTest.fail("After removing every entry, the table has " +
+                              table.capacity() + " slots but should be " +
+                              "back to its initial " + initial + ".");
+    }
+    return true;
+  }
+
+  /**
+   * Inserts and removes one key, over and over, at the sizes where the
+   * table last grew and last shrank.  The table should resize at most once
+   * each time.
+   */
+  private static boolean hysteresis() {
+    HashTableOpen table = new HashTableOpen();
+    int i = 0;
+    boolean ok = true;
+    for (int round = 0; round < 6; round++) {
+      // Grow until the table doubles, then bounce around that point.
+      int length = table.capacity();
+      while (table.capacity() == length) {
+        table.insert(Integer.valueOf(i), null);
+        i++;
+      }
+      ok = bounce(table, i, "just after the table grows") && ok;
+    }
+    for (int round = 0; round < 6; round++) {
+      // Shrink until the table halves, then bounce around that point.
+      int length = table.capacity();
+      while (table.capacity() == length && i > 0) {
+        i--;
+        table.remove(Integer.valueOf(i));
+      }
+      ok = bounce(table, i, "just after the table shrinks") && ok;
+    }
+    return ok;
+  }
+
+  private static boolean bounce(HashTableOpen table, int key, String when) {
+    int resizes = 0;
+    int length = table.capacity();
+    for (int j = 0; j < 4000; j++) {
+      switch (j % 4) {
+      case 0:
+        table.insert(Integer.valueOf(key), null);
+        break;
+      case 1:
+        table.remove(Integer.valueOf(key));
+        break;
+      case 2:
+        table.remove(Integer.valueOf(key - 1));
+        break;
+      default:
+        table.insert(Integer.valueOf(key - 1), null);
+        break;
+      }
+      if (table.capacity() != length) {
+        resizes++;
+        length = table.capacity();
+      }
+    }
+    if (resizes > 1) {
+      return KruskalTest.fail("Inserting and removing " + when + " resizes " +
+                              "the table " + resizes + " times.");
+    }
+    return true;
+  }
+
+  /**
+   * Checks trimToSize() and makeEmpty().
+   */
+  private static boolean trimAndEmpty() {
+    HashTableOpen table = new HashTableOpen(100);
+    Map<Integer, Integer> oracle = new HashMap<Integer, Integer>();
+    int initial = table.capacity();
+    for (int i = 0; i < 5000; i++) {
+      table.insert(Integer.valueOf(i), Integer.valueOf(i));
+      oracle.put(Integer.valueOf(i), Integer.valueOf(i));
+    }
+    for (int i = 0; i < 5000; i += 10) {
+      for (int j = i + 1; j < i + 10; j++) {
+        table.remove(Integer.valueOf(j));
+        oracle.remove(Integer.valueOf(j));
+      }
+    }
+    table.trimToSize();
+    // 500 entries fit in 1024 slots, but not in 512.
+    if (table.capacity() != 1024) {
+      return KruskalTest.fail("trimToSize() leaves 500 entries in " +
+                              table.capacity() + " slots, not 1024.");
+    }
+    if (!sameContents(table, oracle, "After trimToSize()")) {
+      return false;
+    }
+    table.makeEmpty();
+    oracle.clear();
+    if (table.capacity() != initial) {
+      return KruskalTest.fail("makeEmpty() leaves " + table.capacity() +
+                              " slots, not the initial " + initial + ".");
+    }
+    if (!sameContents(table, oracle, "After makeEmpty()")) {
+      return false;
+    }
+    for (int i = 0; i < 3; i++) {
+      table.insert(Integer.valueOf(i), Integer.valueOf(i));
+      oracle.put(Integer.valueOf(i), Integer.valueOf(i));
+    }
+    table.trimToSize();
+    if (table.capacity() != 16) {
+      return KruskalTest.fail("trimToSize() leaves 3 entries in " +
+                              table.capacity() + " slots, not 16.");
+    }
+    return sameContents(table, oracle, "After refilling an emptied table");
+  }
+
+  /**
+   * Runs random inserts, finds and removes against a HashMap, with the
+   * number of keys rising and falling so that the table resizes both ways.
+   */
+  private static boolean randomOps(Random random) {
+    HashTableOpen table = new HashTableOpen();
+    Map<Integer, Integer> oracle = new HashMap<Integer, Integer>();
+    for (int phase = 0; phase < 8; phase++) {
+      int range = phase % 2 == 0 ? 20000 : 50;
+      boolean filling = phase % 2 == 0;
+      for (int op = 0; op < 40000; op++) {
+        Integer key = Integer.valueOf(random.nextInt(range));
+        Integer value = Integer.valueOf(8 * op + phase);   // never reused
+        int kind = random.nextInt(4);
+        if (kind == 0 || (kind == 1 && filling)) {
+          Entry e = table.insertIfAbsent(key, value);
+          if (oracle.containsKey(key) ? e.value() == value
+                                      : e.value() != value) {
+            return KruskalTest.fail("insertIfAbsent(" + key + ") doesn't " +
+                                    "agree with the HashMap.");
+          }
+          if (!oracle.containsKey(key)) {
+            oracle.put(key, value);
+          }
+        } else if (kind == 2) {
+          Entry e = table.find(key);
+          if ((e == null) == oracle.containsKey(key)) {
+            return KruskalTest.fail("find(" + key + ") doesn't agree with " +
+                                    "the HashMap.");
+          }
+        } else {
+          Entry e = table.remove(key);
+          Integer expected = oracle.remove(key);
+          if (e == null ? expected != null : !e.value().equals(expected)) {
+            return KruskalTest.fail("remove(" + key + ") doesn't agree " +
+                                    "with the HashMap.");
+          }
+        }
+      }
+      if (!sameContents(table, oracle, "After phase " + phase)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Builds a graph, removes most of it, and trims it.  The vertices and
+   * edges that are left must be unchanged, and the tables much smaller.
+   */
+  private static boolean trimGraph(Random random) {
+    TableGraph g = new TableGraph();
+    int n = 4000;
+    for (int i = 0; i < n; i++) {
+      g.addVertex(Integer.valueOf(i));
+    }
+    for (int i = 0; i < 5 * n; i++) {
+      g.addEdge(Integer.valueOf(random.nextInt(n)),
+                Integer.valueOf(random.nextInt(n)), random.nextInt(100));
+    }
+    int peakVertexSlots = g.vertexSlots();
+    int peakEdgeSlots = g.edgeSlots();
+    for (int i = 0; i < n; i += 2) {
+      g.removeVertex(Integer.valueOf(i));
+    }
+    for (int i = 1; i < n; i += 4) {
+      g.removeVertex(Integer.valueOf(i));
+    }
+
+    // Record what's left before trimming.
+    int vertices = g.vertexCount();
+    Object[] ids = new Object[vertices];
+    for (int i = 0; i < vertices; i++) {
+      ids[i] = g.vertexAt(i);
+    }
+    final List<int[]> edges = new ArrayList<int[]>();
+    g.forEachEdge(new EdgeVisitor() {
+      public void visit(int u, int v, int weight) {
+        edges.add(new int[] {u, v, weight});
+      }
+    });
+
+    g.trimToSize();
+    if (g.vertexSlots() * 4 > peakVertexSlots ||
+        g.edgeSlots() * 4 > peakEdgeSlots) {
+      return KruskalTest.fail("After removing three quarters of a graph " +
+                              "and calling trimToSize(), its tables have " +
+                              g.vertexSlots() + " and " + g.edgeSlots() +
+                              " slots (at their peak, " + peakVertexSlots +
+                              " and " + peakEdgeSlots + ").");
+    }
+    if (g.vertexCount() != vertices || g.edgeCount() != edges.size()) {
+      return KruskalTest.fail("trimToSize() changes the number of vertices " +
+                              "or edges.");
+    }
+    for (int i = 0; i < vertices; i++) {
+      if (g.vertexAt(i) != ids[i] || g.vertexId(ids[i]) != i) {
+        return KruskalTest.fail("trimToSize() changes vertex ids.");
+      }
+    }
+    for (int i = 0; i < edges.size(); i++) {
+      int[] e = edges.get(i);
+      if (g.weight(ids[e[0]], ids[e[1]]) != e[2] ||
+          !g.isEdge(ids[e[1]], ids[e[0]])) {
+        return KruskalTest.fail("trimToSize() loses edge (" + ids[e[0]] +
+                                ", " + ids[e[1]] + ").");
+      }
+    }
+    // The graph must still grow normally.
+    for (int i = n; i < n + 100; i++) {
+      g.addVertex(Integer.valueOf(i));
+      g.addEdge(Integer.valueOf(i), Integer.valueOf(i - 1), i);
+    }
+    if (g.vertexCount() != vertices + 100 ||
+        g.vertexId(Integer.valueOf(n + 99)) != vertices + 99 ||
+        g.weight(Integer.valueOf(n + 99), Integer.valueOf(n + 98)) !=
+        n + 99) {
+      return KruskalTest.fail("A trimmed graph doesn't grow correctly.");
+    }
+    return true;
+  }
+
+  public static void main(String[] args) {
+    int passed = 0;
+    int total = 0;
+    Random random = new Random(61);
+
+    System.out.println("Running open hash table test.");
+    System.out.println("Filling and emptying tables.");
+    total++;
+    if (shrinks(8)) {
+      passed++;
+    }
+    total++;
+    if (shrinks(3000)) {
+      passed++;
+    }
+    System.out.println("Inserting and removing where the table resizes.");
+    total++;
+    if (hysteresis()) {
+      passed++;
+    }
+    System.out.println("Trimming and emptying a table.");
+    total++;
+    if (trimAndEmpty()) {
+      passed++;
+    }
+    System.out.println("Running random operations against a HashMap.");
+    total++;
+    if (randomOps(random)) {
+      passed++;
+    }
+    System.out.println("Trimming a graph.");
+    total++;
+    if (trimGraph(random)) {
+      passed++;
+    }
+
+    System.out.println("Your HashTableOpen test score is " + passed +
+                       " out of " + total + ".");
+  }
+}
+
+/**
+ * A TableGraph is a WUGraph that reports the sizes of its hash tables.
+ */
+class TableGraph extends WUGraph {
+  int vertexSlots() {
+    return vertices.capacity();
+  }
+
+  int edgeSlots() {
+    return edges.capacity();
+  }
+}
@@ -0,0 +1,259 @@
+/* IncrementalHashTableTest.java */
+
+/**
+ * The IncrementalHashTableTest class tests the incremental resize modes of
+ * HashTableOpen and HashTableChained, and of a WUGraph built on them, by
+ * interleaving inserts, finds and removes with the migrations that resizing
+ * starts.  Every answer is checked against a java.util.HashMap, or for the
+ * graph, against an ordinary WUGraph given the same changes.
+ */
+
+import dict.*;
+import graph.*;
+import java.util.*;
+
+public class IncrementalHashTableTest {
+
+  private static final int OPS = 200000;
+
+  /**
+   * Runs OPS random operations on "table" and a HashMap, with the number of
+   * keys rising and falling so that the table grows and shrinks many times.
+   * Every result is checked as it is returned.  If "open" is not null, it is
+   * the same table, and insertIfAbsent() and entryAt() are checked too.
+   * Returns the number of operations run while a HashTableOpen was in the
+   * middle of a migration (zero for other tables), or -1 on failure.
+   */
+  private static int interleave(dict.Dictionary table, HashTableOpen open,
+                                Random random, String name) {
+    Map<Integer, Integer> oracle = new HashMap<Integer, Integer>();
+    int migrating = 0;
+    for (int op = 0; op < OPS; op++) {
+      // Ramp the key range up and down, so that the table fills and drains.
+      int phase = op / 25000;
+      int range = phase % 2 == 0 ? 30000 : 200;
+      boolean filling = phase % 2 == 0;
+      Integer key = Integer.valueOf(random.nextInt(range));
+      Integer value = Integer.valueOf(op);
+      int kind = random.nextInt(5);
+      String when = name + ", operation " + op;
+      if (open != null && Integer.bitCount(open.capacity()) != 1) {
+        migrating++;                     // old and new slot arrays both live
+      }
+
+      if (kind <= 1 && filling) {
+        if (open != null && kind == 1) {
+          Entry e = open.insertIfAbsent(key, value);
+          if (oracle.containsKey(key) ? e.value() != oracle.get(key)
+                                      : e.value() != value) {
+            return failed(when + ":  insertIfAbsent(" + key + ") doesn't " +
+                          "agree with the HashMap.");
+          }
+          if (!oracle.containsKey(key)) {
+            oracle.put(key, value);
+          }
+        } else if (!oracle.containsKey(key)) {
+          table.insert(key, value);
+          oracle.put(key, value);
+        }
+      } else if (kind == 2) {
+        Entry e = table.find(key);
+        Integer expected = oracle.get(key);
+        if (e == null ? expected != null : e.value() != expected) {
+          return failed(when + ":  find(" + key + ") returns " +
+                        (e == null ? null : e.value()) + " but should " +
+                        "return " + expected + ".");
+        }
+      } else {
+        Entry e = table.remove(key);
+        Integer expected = oracle.remove(key);
+        if (e == null ? expected != null : e.value() != expected) {
+          return failed(when + ":  remove(" + key + ") returns " +
+                        (e == null ? null : e.value()) + " but should " +
+                        "return " + expected + ".");
+        }
+      }
+
+      if (table.size() != oracle.size()) {
+        return failed(when + ":  size() is " + table.size() + " but " +
+                      "should be " + oracle.size() + ".");
+      }
+      if (open != null && op % 1009 == 0 &&
+          !HashTableOpenTest.sameContents(open, oracle, when)) {
+        return -1;
+      }
+    }
+    for (Integer key : oracle.keySet()) {
+      Entry e = table.find(key);
+      if (e == null || e.value() != oracle.get(key)) {
+        return failed(name + ":  at the end, find(" + key + ") doesn't " +
+                      "return the entry inserted.");
+      }
+    }
+    return migrating;
+  }
+
+  private static int failed(String message) {
+    KruskalTest.fail(message);
+    return -1;
+  }
+
+  /**
+   * Walks a HashTableOpen with entryAt() in the middle of a migration,
+   * calling find() on every entry visited.  Since find() moves nothing, the
+   * walk must still see each entry exactly once.
+   */
+  private static boolean walkDuringMigration() {
+    HashTableOpen table = new HashTableOpen(8, true);
+    int n = 0;
+    while (n < 1000 || Integer.bitCount(table.capacity()) == 1) {
+      table.insert(Integer.valueOf(n), Integer.valueOf(n));
+      n++;
+    }
+    boolean[] seen = new boolean[n];
+    int count = 0;
+    for (int i = 0; i < table.capacity(); i++) {
+      Entry e = table.entryAt(i);
+      if (e == null) {
+        continue;
+      }
+      int k = ((Integer) e.key()).intValue();
+      if (seen[k] || table.find(e.key()) != e) {
+        return KruskalTest.fail("Walking a table during a migration visits " +
+                                "key " + k + " twice, or find() can't find " +
+                                "it.");
+      }
+      seen[k] = true;
+      count++;
+    }
+    if (count != n) {
+      return KruskalTest.fail("Walking a table during a migration visits " +
+                              count + " of its " + n + " entries.");
+    }
+    return true;
+  }
+
+  /**
+   * Makes the same random changes to an incremental WUGraph and to an
+   * ordinary one, checking after each that they agree.
+   */
+  private static boolean graphs(Random random) {
+    WUGraph g = new WUGraph(1, 1, true);
+    WUGraph reference = new WUGraph();
+    int n = 3000;
+    for (int op = 0; op < OPS; op++) {
+      int phase = op / 25000;
+      boolean filling = phase % 2 == 0;
+      Integer u = Integer.valueOf(random.nextInt(n));
+      Integer v = Integer.valueOf(random.nextInt(filling ? n : 50));
+      int weight = random.nextInt(100);
+      int kind = random.nextInt(filling ? 4 : 8);
+      switch (kind) {
+      case 0:
+        g.addVertex(u);
+        reference.addVertex(u);
+        break;
+      case 1:
+      case 2:
+        g.addEdge(u, v, weight);
+        reference.addEdge(u, v, weight);
+        break;
+      case 3:
+        g.removeEdge(u, v);
+        reference.removeEdge(u, v);
+        break;
+      default:
+        g.removeVertex(u);
+        reference.removeVertex(u);
+        break;
+      }
+      String when = "After graph operation " + op;
+      if (g.vertexCount() != reference.vertexCount() ||
+          g.edgeCount() != reference.edgeCount()) {
+        return KruskalTest.fail(when + ", the incremental graph has " +
+                                g.vertexCount() + " vertices and " +
+                                g.edgeCount() + " edges, but should have " +
+                                reference.vertexCount() + " and " +
+                                reference.edgeCount() + ".");
+      }
+      if (g.isVertex(u) != reference.isVertex(u) ||
+          g.vertexId(u) != reference.vertexId(u) ||
+          g.degree(u) != reference.degree(u) ||
+          g.isEdge(u, v) != reference.isEdge(u, v) ||
+          g.weight(v, u) != reference.weight(v, u)) {
+        return KruskalTest.fail(when + ", the incremental graph disagrees " +
+                                "about " + u + " or (" + u + ", " + v + ").");
+      }
+    }
+    final int[] visited = new int[1];
+    final WUGraph ref = reference;
+    final WUGraph inc = g;
+    g.forEachEdge(new EdgeVisitor() {
+      public void visit(int u, int v, int weight) {
+        if (ref.weight(inc.vertexAt(u), inc.vertexAt(v)) == weight &&
+            ref.isEdge(inc.vertexAt(u), inc.vertexAt(v))) {
+          visited[0]++;
+        }
+      }
+    });
+    if (visited[0] != reference.edgeCount()) {
+      return KruskalTest.fail("forEachEdge() on the incremental graph " +
+                              "visits " + visited[0] + " matching edges " +
+                              "but there are " + reference.edgeCount() + ".");
+    }
+    return true;
+  }
+
+  public static void main(String[] args) {
+    int passed = 0;
+    int total = 0;
+    Random random = new Random(61);
+
+    System.out.println("Running incremental hash table test.");
+    System.out.println("Interleaving operations with migrations in an " +
+                       "incremental HashTableOpen.");
+    total++;
+    HashTableOpen open = new HashTableOpen(8, true);
+    int migrating = interleave(open, open, random, "HashTableOpen");
+    if (migrating == 0) {
+      KruskalTest.fail("No operation ran during a migration.");
+    } else if (migrating > 0) {
+      System.out.println(migrating + " of " + OPS + " operations ran " +
+                         "during a migration.");
+      passed++;
+    }
+    total++;
+    if (walkDuringMigration()) {
+      passed++;
+    }
+
+    System.out.println("Interleaving operations with migrations in an " +
+                       "incremental HashTableChained.");
+    total++;
+    if (interleave(new HashTableChained(8, true), null, random,
+                   "HashTableChained") >= 0) {
+      passed++;
+    }
+    total++;
+    HashTableChained chained = new HashTableChained(8, true);
+    if (interleave(chained, null, random, "HashTableChained, again") >= 0) {
+      chained.trimToSize();
+      chained.makeEmpty();
+      if (chained.size() == 0 && chained.find(Integer.valueOf(1)) == null) {
+        passed++;
+      } else {
+        KruskalTest.fail("makeEmpty() leaves entries in a HashTableChained.");
+      }
+    }
+
+    System.out.println("Comparing an incremental WUGraph with an ordinary " +
+                       "one.");
+    total++;
+    if (graphs(random)) {
+      passed++;
+    }
+
+    System.out.println("Your incremental hash table test score is " + passed +
+                       " out of " + total + ".");
+  }
+}
@@ -0,0 +1,248 @@
+/* IncrementalMSTTest.java */
+
+/**
+ * The IncrementalMSTTest class tests the IncrementalMST class, by rerunning
+ * Kruskal's algorithm after every edge insertion and comparing the trees.
+ */
+
+import graph.*;
+import graphalg.*;
+import java.util.*;
+import set.*;
+
+public class IncrementalMSTTest {
+
+  private static final int TRIALS = 200;
+  private static final int MAXINT = 100;
+
+  /**
+   * Offers the edge (u, v) to m, and records it in g, the graph of every
+   * edge offered so far.  g keeps only the lightest of several edges offered
+   * between the same two vertices, since only that one can be in a minimum
+   * spanning forest.
+   */
+  private static boolean offer(IncrementalMST m, WUGraph g, Object u,
+                               Object v, int weight) {
+    if (!g.isEdge(u, v) || g.weight(u, v) > weight) {
+      g.addEdge(u, v, weight);
+    }
+    return m.addEdge(u, v, weight);
+  }
+
+  /**
+   * Checks m against a minimum spanning forest of g computed from scratch.
+   */
+  private static boolean sameAsKruskal(IncrementalMST m, WUGraph g,
+                                       String when) {
+    WUGraph k = Kruskal.minSpanTree(g);
+    WUGraph t = m.tree();
+    long kWeight = KruskalTest.totalWeight(k);
+    long tWeight = KruskalTest.totalWeight(t);
+    if (m.totalWeight() != kWeight) {
+      return KruskalTest.fail(when + ":  totalWeight() returns " +
+                              m.totalWeight() + " but Kruskal's tree weighs " +
+                              kWeight + ".");
+    }
+    if (tWeight != m.totalWeight()) {
+      return KruskalTest.fail(when + ":  tree() weighs " + tWeight + " but " +
+                              "totalWeight() returns " + m.totalWeight() +
+                              ".");
+    }
+    if (t.edgeCount() != k.edgeCount()) {
+      return KruskalTest.fail(when + ":  tree() has " + t.edgeCount() +
+                              " edges but Kruskal's tree has " +
+                              k.edgeCount() + ".");
+    }
+    if (t.vertexCount() != g.vertexCount()) {
+      return KruskalTest.fail(when + ":  tree() has " + t.vertexCount() +
+                              " vertices but should have " + g.vertexCount() +
+                              ".");
+    }
+    return true;
+  }
+
+  /**
+   * Checks that every edge of m's tree is an edge of g with the same weight,
+   * and that connected() agrees with g's components.
+   */
+  private static boolean edgesAndComponents(IncrementalMST m, WUGraph g,
+                                            Object[] vertArray,
+                                            String when) {
+    WUGraph t = m.tree();
+    Object[] vertices = t.getVertices();
+    for (int i = 0; i < vertices.length; i++) {
+      Neighbors neigh = t.getNeighbors(vertices[i]);
+      if (neigh == null) {
+        continue;
+      }
+      for (int j = 0; j < neigh.neighborList.length; j++) {
+        Object v = neigh.neighborList[j];
+        if (!g.isEdge(vertices[i], v) ||
+            g.weight(vertices[i], v) != neigh.weightList[j]) {
+          return KruskalTest.fail(when + ":  tree() has an edge of weight " +
+                                  neigh.weightList[j] + " that is not in " +
+                                  "the graph.");
+        }
+      }
+    }
+
+    // Find g's components with a union-find over vertex ids.
+    DisjointSets sets = new DisjointSets(g.vertexCount());
+    for (int i = 0; i < vertices.length; i++) {
+      Neighbors neigh = g.getNeighbors(vertices[i]);
+      if (neigh != null) {
+        for (int j = 0; j < neigh.neighborList.length; j++) {
+          sets.unionByFind(g.vertexId(vertices[i]),
+                           g.vertexId(neigh.neighborList[j]));
+        }
+      }
+    }
+    for (int i = 0; i < vertArray.length; i++) {
+      for (int j = 0; j < vertArray.length; j++) {
+        boolean together = sets.find(g.vertexId(vertArray[i])) ==
+                           sets.find(g.vertexId(vertArray[j]));
+        if (m.connected(vertArray[i], vertArray[j]) != together) {
+          return KruskalTest.fail(when + ":  connected() returns " +
+                                  !together + " but should return " +
+                                  together + ".");
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Builds a graph one edge at a time, starting from an empty
+   * IncrementalMST, and checks it after every insertion.
+   */
+  private static boolean growTrial(Random random, int trial) {
+    int n = 1 + random.nextInt(30);
+    int maxint = trial % 3 == 0 ? 3 : MAXINT;     // many ties, or few
+    IncrementalMST m = new IncrementalMST();
+    WUGraph g = new WUGraph();
+    Object[] vertArray = new Object[n];
+    for (int i = 0; i < n; i++) {
+      vertArray[i] = Integer.valueOf(i);
+      m.addVertex(vertArray[i]);
+      g.addVertex(vertArray[i]);
+    }
+    m.addVertex(vertArray[0]);                     // already a vertex
+
+    for (int e = 0; e < 4 * n; e++) {
+      Object u = vertArray[random.nextInt(n)];
+      Object v = vertArray[random.nextInt(n)];
+      int weight = random.nextInt(2 * maxint) - maxint;
+      long before = m.totalWeight();
+      int edgesBefore = m.tree().edgeCount();
+      boolean changed = offer(m, g, u, v, weight);
+      String when = "Trial " + trial + ", after adding edge " + e;
+      if (!sameAsKruskal(m, g, when)) {
+        return false;
+      }
+      boolean didChange = m.tree().edgeCount() > edgesBefore ||
+                          m.totalWeight() < before;
+      if (changed != didChange) {
+        return KruskalTest.fail(when + ":  addEdge() returns " + changed +
+                                " but should return " + didChange + ".");
+      }
+    }
+    return edgesAndComponents(m, g, vertArray, "Trial " + trial);
+  }
+
+  /**
+   * Starts an IncrementalMST from an existing graph, then adds more edges.
+   */
+  private static boolean fromGraphTrial(Random random, int trial) {
+    int n = 1 + random.nextInt(30);
+    WUGraph g = KruskalTest.randomGraph(random, n, 2 * n, 0, MAXINT);
+    Object[] vertArray = new Object[n];
+    for (int i = 0; i < n; i++) {
+      vertArray[i] = Integer.valueOf(i);
+    }
+    IncrementalMST m = new IncrementalMST(g);
+    if (!sameAsKruskal(m, g, "Trial " + trial + ", from a graph")) {
+      return false;
+    }
+    for (int i = 0; i < n; i++) {
+      if (m.tree().vertexId(vertArray[i]) != g.vertexId(vertArray[i])) {
+        return KruskalTest.fail("Trial " + trial + ":  tree() gives vertex " +
+                                i + " a different id than the graph does.");
+      }
+    }
+    for (int e = 0; e < 2 * n; e++) {
+      offer(m, g, vertArray[random.nextInt(n)], vertArray[random.nextInt(n)],
+            random.nextInt(MAXINT));
+      if (!sameAsKruskal(m, g, "Trial " + trial + ", after adding edge " +
+                         e)) {
+        return false;
+      }
+    }
+    return edgesAndComponents(m, g, vertArray, "Trial " + trial);
+  }
+
+  /**
+   * Checks the edges that addEdge() must ignore.
+   */
+  private static boolean ignoredEdges() {
+    IncrementalMST m = new IncrementalMST();
+    Object a = "a";
+    Object b = "b";
+    m.addVertex(a);
+    m.addVertex(b);
+    boolean ok = true;
+    if (m.addEdge(a, a, -5)) {
+      ok = KruskalTest.fail("addEdge(a, a) returns true but a self-edge is " +
+                            "never in the tree.");
+    }
+    if (m.addEdge(a, "not a vertex", 1)) {
+      ok = KruskalTest.fail("addEdge() returns true for an edge to a " +
+                            "non-vertex.");
+    }
+    if (!m.addEdge(a, b, 7) || m.addEdge(b, a, 7) || m.addEdge(a, b, 8)) {
+      ok = KruskalTest.fail("addEdge() should add (a, b) once, and then " +
+                            "ignore edges between a and b that are no " +
+                            "lighter.");
+    }
+    if (!m.addEdge(b, a, 2) || m.totalWeight() != 2) {
+      ok = KruskalTest.fail("A lighter edge between a and b should replace " +
+                            "the old one; totalWeight() is " +
+                            m.totalWeight() + ".");
+    }
+    if (m.tree().edgeCount() != 1 || m.tree().weight(a, b) != 2) {
+      ok = KruskalTest.fail("tree() should hold just the edge (a, b) of " +
+                            "weight 2.");
+    }
+    if (m.connected(a, "not a vertex")) {
+      ok = KruskalTest.fail("connected() returns true for a non-vertex.");
+    }
+    return ok;
+  }
+
+  public static void main(String[] args) {
+    int passed = 0;
+    Random random = new Random(61);
+
+    System.out.println("Running incremental minimum spanning tree test.");
+    System.out.println("Growing " + TRIALS + " random graphs one edge at a " +
+                       "time.");
+    for (int trial = 0; trial < TRIALS; trial++) {
+      if (growTrial(random, trial)) {
+        passed++;
+      }
+    }
+    System.out.println("Starting " + TRIALS + " random graphs from a WUGraph.");
+    for (int trial = 0; trial < TRIALS; trial++) {
+      if (fromGraphTrial(random, trial)) {
+        passed++;
+      }
+    }
+    System.out.println("Checking edges that should be ignored.");
+    if (ignoredEdges()) {
+      passed++;
+    }
+
+    int total = 2 * TRIALS + 1;
+    System.out.println("Your IncrementalMST test score is " + passed +
+                       " out of " + total + ".");
+  }
+}
@@ -1,12 +1,14 @@
 /* KruskalTest.java */
 
 /**
- * The KruskalTest class tests the Kruskal class.
+ * The KruskalTest class tests the Kruskal class, and then checks the other
+ * minimum spanning tree algorithms in graphalg against it.
  */
 
 import graph.*;
 import graphalg.*;
 import java.util.*;
+import set.*;
 
 public class KruskalTest {
 
@@ -16,6 +18,42 @@ public class KruskalTest {
   private static boolean tree = true;
   private static boolean minTree = true;
 
+  /**
+   * An Engine is a minimum spanning tree algorithm to check against Kruskal.
+   */
+  private static abstract class Engine {
+    String name;
+
+    Engine(String name) {
+      this.name = name;
+    }
+
+    abstract WUGraph minSpanTree(WUGraph g);
+  }
+
+  private static final Engine[] ENGINES = {
+    new Engine("FilterKruskal") {
+      WUGraph minSpanTree(WUGraph g) {
+        return FilterKruskal.minSpanTree(g);
+      }
+    },
+    new Engine("Boruvka") {
+      WUGraph minSpanTree(WUGraph g) {
+        return Boruvka.minSpanTree(g);
+      }
+    },
+    new Engine("Prim") {
+      WUGraph minSpanTree(WUGraph g) {
+        return Prim.minSpanTree(g);
+      }
+    },
+    new Engine("Prim (binary heap)") {
+      WUGraph minSpanTree(WUGraph g) {
+        return Prim.minSpanTree(g, 2);
+      }
+    }
+  };
+
   public static void addRandomEdges(WUGraph g, Object[] vertArray) {
     int i, j;
 
@@ -104,6 +142,164 @@ public class KruskalTest {
     }
   }
 
+  /**
+   * The number of failures reported by fail() so far.  Only the first few
+   * are printed.
+   */
+  private static int failures = 0;
+
+  /**
+   * Prints "message" (unless ten failures have already been printed) and
+   * returns false.  The other tests report their failures with this.
+   */
+  public static boolean fail(String message) {
+    failures++;
+    if (failures <= 10) {
+      System.out.println(message);
+    }
+    return false;
+  }
+
+  /**
+   * Returns a graph on n vertices with m random edges, whose weights are
+   * between lo and hi - 1.
+   */
+  public static WUGraph randomGraph(Random random, int n, int m, int lo,
+                                    int hi) {
+    WUGraph g = new WUGraph();
+    Object[] vertArray = new Object[n];
+    for (int i = 0; i < n; i++) {
+      vertArray[i] = Integer.valueOf(i);
+      g.addVertex(vertArray[i]);
+    }
+    for (int i = 0; i < m; i++) {
+      g.addEdge(vertArray[random.nextInt(n)], vertArray[random.nextInt(n)],
+                lo + random.nextInt(hi - lo));
+    }
+    return g;
+  }
+
+  /**
+   * Returns the graphs to compare the algorithms on.  Most have more edges
+   * than FilterKruskal.BASE_CASE_EDGES, so that FilterKruskal partitions and
+   * filters them rather than just sorting them.
+   */
+  public static WUGraph[] comparisonGraphs(WUGraph small) {
+    Random random = new Random(61);
+    List<WUGraph> graphs = new ArrayList<WUGraph>();
+    graphs.add(small);
+    graphs.add(new WUGraph());                                // no vertices
+    graphs.add(randomGraph(random, 1, 3, 0, 10));             // self-edges
+    graphs.add(randomGraph(random, 2000, 20000, -MAXINT, MAXINT));
+    graphs.add(randomGraph(random, 200, 15000, 0, 1000));     // dense
+    graphs.add(randomGraph(random, 1500, 12000, 7, 8));       // all weight 7
+    graphs.add(randomGraph(random, 1500, 12000, 0, 2));       // two weights
+    graphs.add(randomGraph(random, 5000, 4000, 0, MAXINT));   // disconnected
+
+    // A graph whose vertex ids have been shuffled by removals.
+    WUGraph g = randomGraph(random, 1000, 8000, 0, MAXINT);
+    Object[] vertices = g.getVertices();
+    for (int i = 0; i < vertices.length; i += 3) {
+      g.removeVertex(vertices[i]);
+    }
+    graphs.add(g);
+
+    // A path whose weights fall along it, so Boruvka's hooks form a single
+    // long chain.
+    g = new WUGraph();
+    for (int i = 0; i < 20000; i++) {
+      g.addVertex(Integer.valueOf(i));
+      if (i > 0) {
+        g.addEdge(Integer.valueOf(i - 1), Integer.valueOf(i), 20000 - i);
+      }
+    }
+    graphs.add(g);
+    return graphs.toArray(new WUGraph[graphs.size()]);
+  }
+
+  /**
+   * Returns the sum of the edge weights of t.
+   */
+  public static long totalWeight(WUGraph t) {
+    final long[] sum = new long[1];
+    t.forEachEdge(new EdgeVisitor() {
+      public void visit(int u, int v, int weight) {
+        sum[0] += weight;
+      }
+    });
+    return sum[0];
+  }
+
+  /**
+   * Checks that t is a spanning forest of g with the same number of edges
+   * and the same total weight as Kruskal's tree k.  Returns a description
+   * of the first problem found, or null if there is none.
+   */
+  public static String compareTrees(final WUGraph g, final WUGraph t,
+                                    WUGraph k) {
+    if (t.vertexCount() != g.vertexCount()) {
+      return "has " + t.vertexCount() + " vertices but should have " +
+             g.vertexCount();
+    }
+    if (t.edgeCount() != k.edgeCount()) {
+      return "has " + t.edgeCount() + " edges but Kruskal's tree has " +
+             k.edgeCount();
+    }
+    if (totalWeight(t) != totalWeight(k)) {
+      return "weighs " + totalWeight(t) + " but Kruskal's tree weighs " +
+             totalWeight(k);
+    }
+    final DisjointSets sets = new DisjointSets(t.vertexCount());
+    final String[] problem = new String[1];
+    t.forEachEdge(new EdgeVisitor() {
+      public void visit(int u, int v, int weight) {
+        Object x = t.vertexAt(u);
+        Object y = t.vertexAt(v);
+        if (problem[0] != null) {
+          return;
+        }
+        if (!g.isEdge(x, y) || g.weight(x, y) != weight) {
+          problem[0] = "has an edge of weight " + weight +
+                       " that is not in the graph";
+        } else if (!sets.unionByFind(g.vertexId(x), g.vertexId(y))) {
+          problem[0] = "has a cycle";
+        }
+      }
+    });
+    return problem[0];
+  }
+
+  /**
+   * Runs every Engine on the comparison graphs, and prints how many of its
+   * trees match Kruskal's.
+   */
+  public static void compareEngines(WUGraph small) {
+    WUGraph[] graphs = comparisonGraphs(small);
+    WUGraph[] kruskal = new WUGraph[graphs.length];
+    for (int i = 0; i < graphs.length; i++) {
+      kruskal[i] = Kruskal.minSpanTree(graphs[i]);
+    }
+    for (int e = 0; e < ENGINES.length; e++) {
+      System.out.println("Comparing " + ENGINES[e].name + " with Kruskal.");
+      int matches = 0;
+      for (int i = 0; i < graphs.length; i++) {
+        String problem = compareTrees(graphs[i],
+                                      ENGINES[e].minSpanTree(graphs[i]),
+                                      kruskal[i]);
+        if (problem == null) {
+          matches++;
+        } else {
+          System.out.println("On graph " + i + " (" +
+                             graphs[i].vertexCount() + " vertices, " +
+                             graphs[i].edgeCount() + " edges), " +
+                             ENGINES[e].name + "'s tree " + problem + ".");
+        }
+      }
+      System.out.println(ENGINES[e].name + " matches Kruskal on " + matches +
+                         " of " + graphs.length + " graphs.");
+    }
+  }
+
   public static void main(String[] args) {
     int i, j;
     int score;
@@ -167,6 +363,8 @@ public class KruskalTest {
 
     System.out.println("Your Kruskal test score is " + score + " out of 3.");
     System.out.println("  (Be sure also to run WUGTest.java.)");
+
+    compareEngines(g);
   }
 }
 
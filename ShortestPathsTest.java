@@ -0,0 +1,262 @@
+/* ShortestPathsTest.java */
+
+/**
+ * The ShortestPathsTest class tests the ShortestPaths class against a
+ * simple all-pairs (Floyd-Warshall) computation.
+ */
+
+import graph.*;
+import graphalg.*;
+import java.util.*;
+
+public class ShortestPathsTest {
+
+  private static final int TRIALS = 200;
+  private static final long INF = ShortestPaths.UNREACHABLE;
+
+  /**
+   * Returns the length of a shortest path between every pair of vertices of
+   * g, indexed by vertex id, with INF where there is no path.
+   */
+  public static long[][] allPairs(WUGraph g) {
+    int n = g.vertexCount();
+    long[][] dist = new long[n][n];
+    for (int i = 0; i < n; i++) {
+      Arrays.fill(dist[i], INF);
+      dist[i][i] = 0;
+      Neighbors neigh = g.getNeighbors(g.vertexAt(i));
+      if (neigh != null) {
+        for (int j = 0; j < neigh.neighborList.length; j++) {
+          int k = g.vertexId(neigh.neighborList[j]);
+          dist[i][k] = Math.min(dist[i][k], neigh.weightList[j]);
+        }
+      }
+    }
+    for (int k = 0; k < n; k++) {
+      for (int i = 0; i < n; i++) {
+        if (dist[i][k] == INF) {
+          continue;
+        }
+        for (int j = 0; j < n; j++) {
+          if (dist[k][j] != INF && dist[i][k] + dist[k][j] < dist[i][j]) {
+            dist[i][j] = dist[i][k] + dist[k][j];
+          }
+        }
+      }
+    }
+    return dist;
+  }
+
+  /**
+   * Checks that p is a path from s to t in g of length "length".
+   */
+  private static boolean checkPath(WUGraph g, Object[] p, int s, int t,
+                                   long length, String when) {
+    if (p == null) {
+      return KruskalTest.fail(when + ":  path() returns null but there is a " +
+                              "path.");
+    }
+    if (p[0] != g.vertexAt(s) || p[p.length - 1] != g.vertexAt(t)) {
+      return KruskalTest.fail(when + ":  path() doesn't run from the source " +
+                              "to the target.");
+    }
+    long sum = 0;
+    for (int i = 1; i < p.length; i++) {
+      if (!g.isEdge(p[i - 1], p[i])) {
+        return KruskalTest.fail(when + ":  path() uses an edge not in the " +
+                                "graph.");
+      }
+      sum += g.weight(p[i - 1], p[i]);
+    }
+    if (sum != length) {
+      return KruskalTest.fail(when + ":  path() has length " + sum + " but " +
+                              "the shortest path has length " + length + ".");
+    }
+    return true;
+  }
+
+  /**
+   * Checks every query from every source of g against allPairs().
+   */
+  private static boolean checkGraph(WUGraph g, String when) {
+    int n = g.vertexCount();
+    long[][] expected = allPairs(g);
+    long[] dist = new long[n];
+    int[] pred = new int[n];
+    for (int s = 0; s < n; s++) {
+      Object source = g.vertexAt(s);
+      long[] d = ShortestPaths.distances(g, source);
+      ShortestPaths.distances(g, s, dist, pred);
+      for (int t = 0; t < n; t++) {
+        long e = expected[s][t];
+        String pair = when + ", from " + s + " to " + t;
+        if (d[t] != e || dist[t] != e) {
+          return KruskalTest.fail(pair + ":  distances() gives " + d[t] +
+                                  " and " + dist[t] + " but should give " + e +
+                                  ".");
+        }
+
+        // pred[t] must be the last step of a shortest path.
+        if (t == s || e == INF) {
+          if (pred[t] != -1) {
+            return KruskalTest.fail(pair + ":  pred is " + pred[t] + " but " +
+                                    "should be -1.");
+          }
+        } else {
+          int p = pred[t];
+          if (p < 0 || !g.isEdge(g.vertexAt(p), g.vertexAt(t)) ||
+              expected[s][p] + g.weight(g.vertexAt(p), g.vertexAt(t)) != e) {
+            return KruskalTest.fail(pair + ":  pred is " + p + ", which is " +
+                                    "not the last step of a shortest path.");
+          }
+        }
+
+        Object target = g.vertexAt(t);
+        long one = ShortestPaths.distance(g, source, target);
+        long both = ShortestPaths.bidirectionalDistance(g, source, target);
+        if (one != e || both != e) {
+          return KruskalTest.fail(pair + ":  distance() gives " + one +
+                                  " and bidirectionalDistance() gives " +
+                                  both + " but both should give " + e + ".");
+        }
+        Object[] path = ShortestPaths.path(g, source, target);
+        if (e == INF) {
+          if (path != null) {
+            return KruskalTest.fail(pair + ":  path() should return null.");
+          }
+        } else if (!checkPath(g, path, s, t, e, pair)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks queries that involve objects that are not vertices.
+   */
+  private static boolean nonVertices() {
+    WUGraph g = new WUGraph();
+    Object a = "a";
+    g.addVertex(a);
+    long[] d = ShortestPaths.distances(g, "not a vertex");
+    if (d.length != 1 || d[0] != INF) {
+      return KruskalTest.fail("distances() from a non-vertex should find " +
+                              "nothing.");
+    }
+    if (ShortestPaths.distance(g, a, "not a vertex") != INF ||
+        ShortestPaths.distance(g, "not a vertex", a) != INF ||
+        ShortestPaths.bidirectionalDistance(g, a, "not a vertex") != INF) {
+      return KruskalTest.fail("distance() to a non-vertex should be " +
+                              "UNREACHABLE.");
+    }
+    if (ShortestPaths.path(g, a, "not a vertex") != null) {
+      return KruskalTest.fail("path() to a non-vertex should return null.");
+    }
+    Object[] p = ShortestPaths.path(g, a, a);
+    if (p == null || p.length != 1 || p[0] != a) {
+      return KruskalTest.fail("path() from a vertex to itself should hold " +
+                              "just it.");
+    }
+    return true;
+  }
+
+  /**
+   * Checks that a path longer than Integer.MAX_VALUE is measured correctly.
+   */
+  private static boolean longPath() {
+    WUGraph g = new WUGraph();
+    for (int i = 0; i < 5; i++) {
+      g.addVertex(Integer.valueOf(i));
+      if (i > 0) {
+        g.addEdge(Integer.valueOf(i - 1), Integer.valueOf(i),
+                  Integer.MAX_VALUE);
+      }
+    }
+    long expected = 4L * Integer.MAX_VALUE;
+    if (ShortestPaths.distance(g, Integer.valueOf(0), Integer.valueOf(4)) !=
+        expected ||
+        ShortestPaths.bidirectionalDistance(g, Integer.valueOf(0),
+                                            Integer.valueOf(4)) != expected) {
+      return KruskalTest.fail("A path of four edges of weight " +
+                              "Integer.MAX_VALUE should have length " +
+                              expected + ".");
+    }
+    return true;
+  }
+
+  /**
+   * Checks that every kind of query rejects a negative edge weight.
+   */
+  private static boolean negativeWeights() {
+    WUGraph g = new WUGraph();
+    Object a = "a";
+    Object b = "b";
+    g.addVertex(a);
+    g.addVertex(b);
+    g.addEdge(a, b, -1);
+    boolean ok = true;
+    for (int query = 0; query < 4; query++) {
+      try {
+        switch (query) {
+        case 0:
+          ShortestPaths.distances(g, a);
+          break;
+        case 1:
+          ShortestPaths.distance(g, a, b);
+          break;
+        case 2:
+          ShortestPaths.bidirectionalDistance(g, a, b);
+          break;
+        default:
+          ShortestPaths.path(g, a, b);
+          break;
+        }
+        ok = KruskalTest.fail("Query " + query + " should throw an " +
+                              "IllegalArgumentException on a negative " +
+                              "weight.");
+      } catch (IllegalArgumentException e) {
+        // Expected.
+      }
+    }
+    return ok;
+  }
+
+  public static void main(String[] args) {
+    int passed = 0;
+    Random random = new Random(61);
+
+    System.out.println("Running shortest paths test.");
+    System.out.println("Checking every pair of vertices in " + TRIALS +
+                       " random graphs.");
+    for (int trial = 0; trial < TRIALS; trial++) {
+      int n = 1 + random.nextInt(40);
+      int m = random.nextInt(3 * n);
+      int maxWeight = trial % 4 == 0 ? 1 : 100;      // many ties, or few
+      WUGraph g = KruskalTest.randomGraph(random, n, m, 0, maxWeight + 1);
+      // Remove some vertices, so that vertex ids get moved around.
+      for (int i = 0; i < n / 10; i++) {
+        g.removeVertex(Integer.valueOf(random.nextInt(n)));
+      }
+      if (checkGraph(g, "Trial " + trial)) {
+        passed++;
+      }
+    }
+    System.out.println("Checking non-vertices.");
+    if (nonVertices()) {
+      passed++;
+    }
+    System.out.println("Checking a very long path.");
+    if (longPath()) {
+      passed++;
+    }
+    System.out.println("Checking negative weights.");
+    if (negativeWeights()) {
+      passed++;
+    }
+
+    int total = TRIALS + 3;
+    System.out.println("Your ShortestPaths test score is " + passed +
+                       " out of " + total + ".");
+  }
+}
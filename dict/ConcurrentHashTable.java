@@ -0,0 +1,316 @@
+/* ConcurrentHashTable.java */
+
+package dict;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ *  ConcurrentHashTable implements a Dictionary as a chained hash table that
+ *  many threads can use at once.
+ *
+ *  find() takes no locks at all:  it reads the current bucket array and
+ *  walks a chain of nodes whose links are volatile, so it always sees either
+ *  the chain before or after any concurrent change.  insert() and remove()
+ *  lock only one of a fixed set of "stripes"; each bucket belongs to exactly
+ *  one stripe, so writers to different stripes never wait for each other.
+ *  Resizing locks every stripe and builds a new bucket array out of new
+ *  nodes, so readers still walking the old array are undisturbed.
+ *
+ *  size() and isEmpty() are exact when no writes are in progress.
+ **/
+
+public class ConcurrentHashTable implements Dictionary {
+
+  /**
+   *  A Node is one link of a bucket's chain.  Its entry and hash never
+   *  change; next changes only under the bucket's stripe lock.
+   **/
+
+  private static class Node {
+    private final int hash;
+    private final Entry entry;
+    private volatile Node next;
+
+    private Node(int hash, Entry entry, Node next) {
+      this.hash = hash;
+      this.entry = entry;
+      this.next = next;
+    }
+  }
+
+  /**
+   *  DEFAULT_STRIPES is the number of stripe locks used by default.
+   *  MAX_LOAD is the load factor (entries per bucket) that triggers doubling.
+   **/
+
+  private static final int DEFAULT_STRIPES = 16;
+  private static final double MAX_LOAD = 0.75;
+
+  /**
+   *  table is the current bucket array; its length is a power of two, and at
+   *  least the number of stripes.
+   *  locks[s] guards every bucket whose index is s modulo locks.length.
+   *  size is the number of entries.
+   *  threshold is the size at which the table doubles.
+   **/
+
+  private volatile AtomicReferenceArray<Node> table;
+  private final ReentrantLock[] locks;
+  private final AtomicInteger size;
+  private volatile int threshold;
+
+  /**
+   *  Construct a new empty hash table intended to hold roughly sizeEstimate
+   *  entries, with the given number of stripe locks (rounded up to a power
+   *  of two).  More stripes allow more concurrent writers.
+   **/
+
+  public ConcurrentHashTable(int sizeEstimate, int stripes) {
+    int s = 1;
+    while (s < stripes && s < (1 << 16)) {
+      s = s << 1;
+    }
+    locks = new ReentrantLock[s];
+    for (int i = 0; i < s; i++) {
+      locks[i] = new ReentrantLock();
+    }
+    size = new AtomicInteger();
+    allocate(bucketsFor(sizeEstimate));
+  }
+
+  /**
+   *  Construct a new empty hash table intended to hold roughly sizeEstimate
+   *  entries, with the default number of stripe locks.
+   **/
+
+  public ConcurrentHashTable(int sizeEstimate) {
+    this(sizeEstimate, DEFAULT_STRIPES);
+  }
+
+  /**
+   *  Construct a new empty hash table with a default size.
+   **/
+
+  public ConcurrentHashTable() {
+    this(DEFAULT_STRIPES);
+  }
+
+  /**
+   *  Returns the smallest power of two number of buckets, no fewer than the
+   *  number of stripes, that holds n entries without exceeding MAX_LOAD.
+   **/
+
+  private int bucketsFor(int n) {
+    int b = locks.length;
+    while (b < (1 << 30) && b * MAX_LOAD < n) {
+      b = b << 1;
+    }
+    return b;
+  }
+
+  /**
+   *  Installs an empty bucket array of the given length.
+   **/
+
+  private void allocate(int length) {
+    threshold = (int) (length * MAX_LOAD);
+    table = new AtomicReferenceArray<Node>(length);
+  }
+
+  /**
+   *  Returns the stripe lock guarding buckets for hash h.  Because the table
+   *  length is a multiple of the number of stripes, this is the same lock
+   *  whatever the table's current length.
+   **/
+
+  private ReentrantLock lockFor(int h) {
+    return locks[h & (locks.length - 1)];
+  }
+
+  /**
+   *  Returns the number of entries stored in the dictionary.  Entries with
+   *  the same key (or even the same key and value) each still count as
+   *  a separate entry.
+   *  @return number of entries in the dictionary.
+   **/
+
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   *  Tests if the dictionary is empty.
+   *
+   *  @return true if the dictionary has no entries; false otherwise.
+   **/
+
+  public boolean isEmpty() {
+    return size.get() == 0;
+  }
+
+  /**
+   *  Create a new Entry object referencing the input key and associated value,
+   *  and insert the entry into the dictionary.  Return a reference to the new
+   *  entry.  Multiple entries with the same key (or even the same key and
+   *  value) can coexist in the dictionary.
+   *
+   *  Locks one stripe.  Runs in O(1) time, plus a resize now and then.
+   *
+   *  @param key the key by which the entry can be retrieved.
+   *  @param value an arbitrary object.
+   *  @return an entry containing the key and value.
+   **/
+
+  public Entry insert(Object key, Object value) {
+    Entry temp = new Entry();
+    temp.key = key;
+    temp.value = value;
+    int h = HashTableOpen.spread(key.hashCode());
+    ReentrantLock lock = lockFor(h);
+    lock.lock();
+    try {
+      // Resizing needs every lock, so the table can't change while we hold
+      // this one.
+      AtomicReferenceArray<Node> tab = table;
+      int i = h & (tab.length() - 1);
+      tab.set(i, new Node(h, temp, tab.get(i)));
+    } finally {
+      lock.unlock();
+    }
+    if (size.incrementAndGet() > threshold) {
+      resize();
+    }
+    return temp;
+  }
+
+  /**
+   *  Search for an entry with the specified key.  If such an entry is found,
+   *  return it; otherwise return null.  If several entries have the specified
+   *  key, choose one arbitrarily and return it.
+   *
+   *  Takes no locks.  Runs in O(1) time if the number of collisions is small.
+   *
+   *  @param key the search key.
+   *  @return an entry containing the key and an associated value, or null if
+   *          no entry contains the specified key.
+   **/
+
+  public Entry find(Object key) {
+    int h = HashTableOpen.spread(key.hashCode());
+    AtomicReferenceArray<Node> tab = table;
+    Node n = tab.get(h & (tab.length() - 1));
+    while (n != null) {
+      if (n.hash == h && n.entry.key.equals(key)) {
+        return n.entry;
+      }
+      n = n.next;
+    }
+    return null;
+  }
+
+  /**
+   *  Remove an entry with the specified key.  If such an entry is found,
+   *  remove it from the table and return it; otherwise return null.
+   *  If several entries have the specified key, choose one arbitrarily, then
+   *  remove and return it.
+   *
+   *  Locks one stripe.  Runs in O(1) time if the number of collisions is
+   *  small.
+   *
+   *  @param key the search key.
+   *  @return an entry containing the key and an associated value, or null if
+   *          no entry contains the specified key.
+   */
+
+  public Entry remove(Object key) {
+    int h = HashTableOpen.spread(key.hashCode());
+    ReentrantLock lock = lockFor(h);
+    lock.lock();
+    try {
+      AtomicReferenceArray<Node> tab = table;
+      int i = h & (tab.length() - 1);
+      Node prev = null;
+      Node n = tab.get(i);
+      while (n != null) {
+        if (n.hash == h && n.entry.key.equals(key)) {
+          // A reader standing on n still sees the rest of the chain.
+          if (prev == null) {
+            tab.set(i, n.next);
+          } else {
+            prev.next = n.next;
+          }
+          size.decrementAndGet();
+          return n.entry;
+        }
+        prev = n;
+        n = n.next;
+      }
+      return null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   *  Remove all entries from the dictionary.  Locks every stripe.
+   */
+
+  public void makeEmpty() {
+    lockAll();
+    try {
+      allocate(table.length());
+      size.set(0);
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   *  Doubles the number of buckets, unless another thread already has.
+   *  Locks every stripe.  New nodes are made for the new array, so the old
+   *  one is left intact for readers still using it.
+   **/
+
+  private void resize() {
+    lockAll();
+    try {
+      AtomicReferenceArray<Node> oldTab = table;
+      if (size.get() <= threshold || oldTab.length() >= (1 << 30)) {
+        return;
+      }
+      AtomicReferenceArray<Node> newTab =
+        new AtomicReferenceArray<Node>(oldTab.length() << 1);
+      int mask = newTab.length() - 1;
+      for (int i = 0; i < oldTab.length(); i++) {
+        for (Node n = oldTab.get(i); n != null; n = n.next) {
+          int j = n.hash & mask;
+          newTab.set(j, new Node(n.hash, n.entry, newTab.get(j)));
+        }
+      }
+      threshold = (int) (newTab.length() * MAX_LOAD);
+      table = newTab;
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   *  Locks (and unlocks) every stripe, always in the same order so that two
+   *  threads doing this can't deadlock.
+   **/
+
+  private void lockAll() {
+    for (int i = 0; i < locks.length; i++) {
+      locks[i].lock();
+    }
+  }
+
+  private void unlockAll() {
+    for (int i = locks.length - 1; i >= 0; i--) {
+      locks[i].unlock();
+    }
+  }
+
+}
@@ -13,6 +13,9 @@ import list.*;
  *  implements only the compression function, which maps the hash code to
  *  a bucket in the table's range.
  *
+ *  A bucket's DList is not allocated until the first entry is inserted into
+ *  it, so empty buckets cost only an array slot.
+ *
  *  DO NOT CHANGE ANY PROTOTYPES IN THIS FILE.
  **/
 
@@ -22,6 +25,34 @@ public class HashTableChained implements Dictionary {
   private DList[] table;
   private int buckets;
   private int collisions;
+  private int prime;
+  private int initialBuckets;
+
+  /**
+   * Fields used only in incremental resize mode.
+   * incremental is true if this table resizes incrementally.
+   * oldTable is the table being migrated away from, or null if no migration
+   *  is in progress; oldBuckets and oldPrime are its compression parameters.
+   * migrated is the number of oldTable's buckets (from index 0 up) that
+   *  have been moved into table so far.
+   */
+  private boolean incremental;
+  private DList[] oldTable;
+  private int oldBuckets;
+  private int oldPrime;
+  private int migrated;
+
+  /**
+   * MAX_PRIME is the largest int prime, used as the MAD modulus when
+   * buckets*50000 would overflow an int.
+   * MIGRATE_STEP is the number of old buckets each operation migrates in
+   * incremental resize mode.
+   * SHRINK_LOAD is the load factor below which remove() halves the table
+   * (but never below the size it was constructed with).
+   */
+  private static final int MAX_PRIME = Integer.MAX_VALUE;
+  private static final int MIGRATE_STEP = 4;
+  private static final double SHRINK_LOAD = 0.25;
 
   /** 
    *  Construct a new empty hash table intended to hold roughly sizeEstimate
@@ -32,14 +63,30 @@ public class HashTableChained implements Dictionary {
   public HashTableChained(int sizeEstimate) {
     // Your solution here.
   	size = 0;
-  	buckets = findPrime((sizeEstimate*100) / 77);
-  	if (((sizeEstimate*1.0) / buckets) > 1.0) {
-  		buckets = (sizeEstimate*20) / 17;
-  	}
+  	buckets = bucketsFor(sizeEstimate);
+  	initialBuckets = buckets;
   	table = new DList[buckets];
-  	for (int i = 0; i < buckets; i++) {
-  		table[i] = new DList();
-  	}
+  	prime = findModulus(buckets);
+  }
+
+  /**
+   *  Construct a new empty hash table intended to hold roughly sizeEstimate
+   *  entries, optionally in incremental resize mode.
+   *
+   *  Normally, the insert() that pushes the load factor past 1 rehashes
+   *  every entry before it returns.  In incremental mode, that insert() just
+   *  allocates the bigger table; the old table is kept, and every insert(),
+   *  find() and remove() afterward moves a few of the old buckets' entries
+   *  across, until none are left.  No single operation then costs more than
+   *  O(1) rehashing (plus the allocation of the new bucket array).
+   *
+   *  @param sizeEstimate roughly how many entries the table will hold.
+   *  @param incremental true for incremental resize mode.
+   **/
+
+  public HashTableChained(int sizeEstimate, boolean incremental) {
+    this(sizeEstimate);
+    this.incremental = incremental;
   }
 
   /** 
@@ -51,10 +98,9 @@ public class HashTableChained implements Dictionary {
     // Your solution here.
   	size = 0;
   	buckets = 101;
+  	initialBuckets = buckets;
   	table = new DList[buckets];
-  	for (int i = 0; i < buckets; i++) {
-  		table[i] = new DList();
-  	}
+  	prime = findModulus(buckets);
   }
   
   //Helper functions for obtaining primes.
@@ -92,6 +138,34 @@ public class HashTableChained implements Dictionary {
 	  }
   }
 
+  /**
+   * Returns the number of buckets to use for roughly n entries:  a prime
+   * giving a load factor near 0.77, and always at least 1.
+   * @param n the number of entries expected
+   */
+  private int bucketsFor(int n) {
+	  int b = findPrime((int) (((long) n*100) / 77));
+	  if (((n*1.0) / b) > 1.0) {
+		  b = (int) (((long) n*20) / 17);
+	  }
+	  return Math.max(b, 1);
+  }
+
+  /**
+   * Finds the prime p used by the MAD compression function for a table with
+   * n buckets.  This is only called when the number of buckets changes, so
+   * compFunction itself never searches for primes.
+   * @param n the number of buckets
+   * @return a prime close to n*50000, or MAX_PRIME if that (plus findPrime's
+   *         10% search range) would overflow
+   */
+  private int findModulus(int n) {
+	  if (n > (MAX_PRIME / 11) * 10 / 50000) {
+		  return MAX_PRIME;
+	  }
+	  return findPrime(n*50000);
+  }
+
   /**
    *  Converts a hash code in the range Integer.MIN_VALUE...Integer.MAX_VALUE
    *  to a value in the range 0...(size of hash table) - 1.
@@ -101,12 +175,20 @@ public class HashTableChained implements Dictionary {
    **/
 
   int compFunction(int code) {
+    return compress(code, prime, buckets);
+  }
+
+  /**
+   * The MAD compression function for a table with n buckets and modulus p.
+   * compFunction uses the current table's parameters; incremental resize
+   * also needs the old table's.
+   */
+  private static int compress(int code, int p, int n) {
   	int a = 6,b = 29;
-  	long c = (a*code) + b;
-  	int p = findPrime(buckets*50000);
-    int result = (int) ((c % p) % buckets);
+  	long c = ((long) a * code) + b;
+    int result = (int) ((c % p) % n);
     if (result < 0) {
-    	result = result + buckets;
+    	result = result + n;
     }
     return result;
   }
@@ -152,11 +234,16 @@ public class HashTableChained implements Dictionary {
    */
   
   public void histogram() {
+	  finishMigration();
 	  String chart;
 	  System.out.println("Entry Distribution: ");
 	  for (int i = 0; i < table.length; i++) {
-		  ListNode current = table[i].front();
 		  chart = "hash index " + i + ": ";
+		  if (table[i] == null) {
+			  System.out.println(chart);
+			  continue;
+		  }
+		  ListNode current = table[i].front();
 		  while (current.isValidNode()) {
 			  chart = chart + "X ";
 			  try {
@@ -176,27 +263,140 @@ public class HashTableChained implements Dictionary {
    */
   
   private void resize() {
-	  int doubled = findPrime(2*buckets);
-    DList[] newTable = new DList[doubled];
-    for (int i = 0; i < doubled; i++) {
-      newTable[i] = new DList();
+    resize(findPrime(2*buckets));
+  }
+
+  /**
+   * Resizes the hash table to newBuckets buckets (larger or smaller) and
+   * re-hashes every entry.  In incremental mode, the entries are left in
+   * oldTable, to be moved across a few buckets at a time by migrate().
+   */
+
+  private void resize(int newBuckets) {
+    finishMigration();
+    DList[] newTable = new DList[newBuckets];
+    oldTable = table;
+    oldBuckets = buckets;
+    oldPrime = prime;
+    migrated = 0;
+    table = newTable;
+    buckets = newBuckets;
+    prime = findModulus(buckets);
+    if (!incremental) {
+      finishMigration();
+    }
+  }
+
+  /**
+   * Returns bucket i of the current table, allocating its DList first if
+   * nothing has been inserted there yet.
+   */
+
+  private DList bucketAt(int i) {
+    DList bucket = table[i];
+    if (bucket == null) {
+      bucket = new DList();
+      table[i] = bucket;
+    }
+    return bucket;
+  }
+
+  /**
+   * Shrinks the table to the fewest buckets that keep the load factor at
+   * most about 0.77, releasing the storage of any extra buckets.  Useful
+   * after removing many entries from a table that will not grow again soon.
+   * Even in incremental mode, this rehashes everything before returning.
+   */
+
+  public void trimToSize() {
+    int trimmed = bucketsFor(size);
+    if (trimmed < buckets) {
+      resize(trimmed);
+      finishMigration();
+    }
+  }
+
+  /**
+   * Moves the entries of up to "steps" old buckets into the current table.
+   * Does nothing if no migration is in progress.
+   */
+
+  private void migrate(int steps) {
+    if (oldTable == null) {
+      return;
     }
-    buckets = doubled;
-    for (DList l : table) {
-      if (l.size() != 0) {
-        ListNode current = l.front();
-        while (current.isValidNode()) {
-          try {
-            Entry x = (Entry) current.item();
-            int comp2 = compFunction(x.key().hashCode());
-            newTable[comp2].insertBack(x);
-            current = current.next();
-          } catch(InvalidNodeException e) {
-            System.out.println("That shouldn't happen.");
-          }
+    int end = Math.min(oldBuckets, migrated + steps);
+    for (; migrated < end; migrated++) {
+      if (oldTable[migrated] == null) {
+        continue;
+      }
+      ListNode current = oldTable[migrated].front();
+      while (current.isValidNode()) {
+        try {
+          Entry x = (Entry) current.item();
+          bucketAt(compFunction(x.key().hashCode())).insertBack(x);
+          current = current.next();
+        } catch(InvalidNodeException e) {
+          System.out.println("That shouldn't happen.");
+        }
+      }
+      oldTable[migrated] = null;
+    }
+    if (migrated == oldBuckets) {
+      oldTable = null;
+    }
+  }
+
+  /**
+   * Moves every remaining old entry into the current table.
+   */
+
+  private void finishMigration() {
+    migrate(oldBuckets);
+  }
+
+  /**
+   * Returns the node holding an entry with the given key, or null if there
+   * is none.  During a migration, entries can be in the old table (if their
+   * old bucket has not been moved yet) or in the current table (if they were
+   * inserted since the resize), so both are searched.
+   */
+
+  private ListNode nodeFor(Object key) {
+    int code = key.hashCode();
+    if (oldTable != null) {
+      int old = compress(code, oldPrime, oldBuckets);
+      if (old >= migrated) {
+        ListNode node = nodeIn(oldTable[old], key);
+        if (node != null) {
+          return node;
         }
       }
     }
+    return nodeIn(table[compFunction(code)], key);
+  }
+
+  /**
+   * Returns the node of "bucket" holding an entry with the given key, or
+   * null if there is none.  "bucket" may be null (never used).
+   */
+
+  private ListNode nodeIn(DList bucket, Object key) {
+  	if (bucket == null) {
+  		return null;
+  	}
+  	ListNode current = bucket.front();
+  	while (current.isValidNode()) {
+  		try {
+  			if (((Entry) current.item()).key.equals(key)) {
+  				return current;
+  			}
+  			current = current.next();
+  		} catch(InvalidNodeException e) {
+  			System.out.println("That shouldn't happen.");
+  		}
+  	}
+  	return null;
   }
 
   /** 
@@ -223,11 +423,12 @@ public class HashTableChained implements Dictionary {
    **/
 
   public Entry insert(Object key, Object value) {
+    migrate(MIGRATE_STEP);
   	int comped = compFunction(key.hashCode());
   	Entry temp = new Entry();
   	temp.key = key;
   	temp.value = value;
-  	DList bucket = table[comped];
+  	DList bucket = bucketAt(comped);
   	if (bucket.length() != 0) {
   		collisions++;
   	}
@@ -252,20 +453,16 @@ public class HashTableChained implements Dictionary {
    **/
 
   public Entry find(Object key) {
-  	int comped = compFunction(key.hashCode());
-  	DList bucket = table[comped];
-  	ListNode current = bucket.front();
-  	while (current.isValidNode()) {
-  		try {
-  			if (((Entry) current.item()).key.equals(key)) {
-  				return (Entry) current.item();
-  			} else {
-  				current = current.next();
-  			}
-  		} catch(InvalidNodeException e) {
-  			System.out.println("That shouldn't happen.");
-  		}
-  	}
+    migrate(MIGRATE_STEP);
+    ListNode node = nodeFor(key);
+    if (node == null) {
+      return null;
+    }
+    try {
+      return (Entry) node.item();
+    } catch(InvalidNodeException e) {
+      System.out.println("That shouldn't happen.");
+    }
     return null;
   }
 
@@ -283,34 +480,41 @@ public class HashTableChained implements Dictionary {
    */
 
   public Entry remove(Object key) {
-  	int comped = compFunction(key.hashCode());
-  	DList bucket = table[comped];
-  	ListNode current = bucket.front();
-  	while (current.isValidNode()) {
-  		try {
-  			Entry temp = (Entry) current.item();
-  			if (temp.key.equals(key)) { 
-  				current.remove();
-  				size--;
-  				return temp;
-  			} else {
-  				current = current.next();
-  			}
-  		} catch(InvalidNodeException e) {
-  			System.out.println("That shouldn't happen.");
-  		}
-  	}
-  	return null;
+    migrate(MIGRATE_STEP);
+    ListNode node = nodeFor(key);
+    if (node == null) {
+      return null;
+    }
+    try {
+      Entry temp = (Entry) node.item();
+      node.remove();
+      size--;
+      if (loadFactor() < SHRINK_LOAD && buckets / 2 >= initialBuckets) {
+        resize(findPrime(buckets / 2));
+      }
+      return temp;
+    } catch(InvalidNodeException e) {
+      System.out.println("That shouldn't happen.");
+    }
+    return null;
   }
 
   /**
-   *  Remove all entries from the dictionary.
+   *  Remove all entries from the dictionary.  A table that has grown past
+   *  the size it was constructed with goes back to that size; otherwise the
+   *  bucket array is reused.
    */
   public void makeEmpty() {
   	size = 0;
-  	table = new DList[buckets];
+  	oldTable = null;
+  	if (buckets != initialBuckets) {
+  		buckets = initialBuckets;
+  		prime = findModulus(buckets);
+  		table = new DList[buckets];
+  		return;
+  	}
   	for (int i = 0; i < buckets; i++) {
-  		table[i] = new DList();
+  		table[i] = null;
   	}
   }
 
@@ -0,0 +1,556 @@
+/* HashTableOpen.java */
+
+package dict;
+
+/**
+ *  HashTableOpen implements a Dictionary as a hash table with open addressing
+ *  and linear probing.  Entries are stored directly in a flat array of slots,
+ *  alongside a parallel array of their (spread) hash codes, so a lookup is a
+ *  short scan over contiguous memory instead of a walk down a linked chain.
+ *
+ *  The number of slots is always a power of two, and hash codes are mixed
+ *  before masking so that keys with poor low-order bits still spread out.
+ *  Removed entries leave a "tombstone" behind so that probe sequences passing
+ *  through them are not cut short; tombstones are reused by insert() and
+ *  discarded whenever the table is rehashed.
+ *
+ *  The table doubles when it gets too full, and halves when remove() leaves
+ *  it mostly empty, but never below the size it was constructed with.  The
+ *  two limits are far enough apart that inserting and removing near either
+ *  one can't make the table resize back and forth.  trimToSize() shrinks it
+ *  all the way on request.
+ *
+ *  Normally the insert() or remove() that triggers a resize rehashes every
+ *  entry before it returns.  In incremental mode, it just allocates the new
+ *  slot arrays and keeps the old ones; every insert(), insertIfAbsent() and
+ *  remove() afterward moves the entries of MIGRATE_STEP old slots across,
+ *  until none are left.  Lookups search both tables meanwhile.  find() never
+ *  moves anything, so it still changes nothing and any number of threads may
+ *  call it at once.
+ **/
+
+public class HashTableOpen implements Dictionary {
+
+  /**
+   *  TOMBSTONE marks a slot whose entry has been removed.
+   *  MIN_SLOTS is the smallest table we ever allocate.
+   *  MAX_LOAD is the fraction of slots (live entries plus tombstones) that
+   *  may be occupied before the table is rehashed.
+   *  MIN_LOAD is the fraction of slots that live entries must fill; below
+   *  it, remove() halves the table.  Halving leaves the table less than a
+   *  quarter full, so it is a long way from having to grow again.
+   *  MIGRATE_STEP is the number of old slots each change moves in
+   *  incremental mode.  It is large enough that a migration always finishes
+   *  before the new table needs resizing in turn.
+   **/
+
+  private static final Entry TOMBSTONE = new Entry();
+  private static final int MIN_SLOTS = 16;
+  private static final double MAX_LOAD = 0.75;
+  private static final double MIN_LOAD = 0.125;
+  private static final int MIGRATE_STEP = 16;
+
+  /**
+   *  slots holds the entries (or null, or TOMBSTONE).
+   *  hashes holds the spread hash code of the entry in the same slot.
+   *  mask is slots.length - 1.
+   *  size is the number of live entries.
+   *  used is the number of live entries plus tombstones.
+   *  threshold is the value of used at which the table is rehashed.
+   *  shrinkThreshold is the value of size below which remove() halves the
+   *   table, or 0 if the table is already at its initial length.
+   *  initialLength is the number of slots the table was constructed with.
+   *
+   *  Fields used only in incremental mode:
+   *  incremental is true if this table resizes incrementally.
+   *  oldSlots and oldHashes are the arrays being migrated away from, or null
+   *   if no migration is in progress; oldMask is oldSlots.length - 1.
+   *  migrated is the number of old slots (from index 0 up) whose entries have
+   *   been moved into slots.  Those old slots still hold their entries, so
+   *   that probe sequences through them are not cut short, but the entries
+   *   there are ignored.
+   **/
+
+  private Entry[] slots;
+  private int[] hashes;
+  private int mask;
+  private int size;
+  private int used;
+  private int threshold;
+  private int shrinkThreshold;
+  private int initialLength;
+
+  private boolean incremental;
+  private Entry[] oldSlots;
+  private int[] oldHashes;
+  private int oldMask;
+  private int migrated;
+
+  /**
+   *  Construct a new empty hash table intended to hold roughly sizeEstimate
+   *  entries without rehashing.
+   **/
+
+  public HashTableOpen(int sizeEstimate) {
+    initialLength = slotsFor(sizeEstimate);
+    allocate(initialLength);
+  }
+
+  /**
+   *  Construct a new empty hash table with a default size.
+   **/
+
+  public HashTableOpen() {
+    this(MIN_SLOTS / 2);
+  }
+
+  /**
+   *  Construct a new empty hash table intended to hold roughly sizeEstimate
+   *  entries, optionally in incremental mode (see the class comment).
+   *
+   *  @param sizeEstimate roughly how many entries the table will hold.
+   *  @param incremental true for incremental mode.
+   **/
+
+  public HashTableOpen(int sizeEstimate, boolean incremental) {
+    this(sizeEstimate);
+    this.incremental = incremental;
+  }
+
+  /**
+   *  Returns the smallest power of two number of slots that can hold n
+   *  entries without exceeding MAX_LOAD.
+   **/
+
+  private static int slotsFor(int n) {
+    int s = MIN_SLOTS;
+    while (s < (1 << 30) && s * MAX_LOAD < n) {
+      s = s << 1;
+    }
+    return s;
+  }
+
+  /**
+   *  Replaces the slot arrays with empty arrays of the given length.
+   **/
+
+  private void allocate(int length) {
+    slots = new Entry[length];
+    hashes = new int[length];
+    mask = length - 1;
+    used = 0;
+    threshold = (int) (length * MAX_LOAD);
+    shrinkThreshold = length > initialLength ? (int) (length * MIN_LOAD) : 0;
+  }
+
+  /**
+   *  Mixes the bits of a hash code so the low-order bits used to pick a slot
+   *  depend on the whole code.
+   **/
+
+  static int spread(int code) {
+    code = code ^ (code >>> 16);
+    code = code * 0x85ebca6b;
+    code = code ^ (code >>> 13);
+    return code;
+  }
+
+  /**
+   *  Returns the slot holding a live entry whose key equals "key", or -1 if
+   *  there is none.
+   **/
+
+  private int indexOf(Object key, int h) {
+    int i = h & mask;
+    Entry e;
+    while ((e = slots[i]) != null) {
+      if (e != TOMBSTONE && hashes[i] == h && e.key.equals(key)) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   *  Returns the slot of oldSlots holding a live, not yet migrated entry
+   *  whose key equals "key", or -1 if there is none (or no migration is in
+   *  progress).
+   **/
+
+  private int oldIndexOf(Object key, int h) {
+    if (oldSlots == null) {
+      return -1;
+    }
+    int i = h & oldMask;
+    Entry e;
+    while ((e = oldSlots[i]) != null) {
+      if (i >= migrated && e != TOMBSTONE && oldHashes[i] == h &&
+          e.key.equals(key)) {
+        return i;
+      }
+      i = (i + 1) & oldMask;
+    }
+    return -1;
+  }
+
+  /**
+   *  Rehashes every live entry into a table of the given number of slots,
+   *  dropping all tombstones, before returning.
+   **/
+
+  private void rehash(int length) {
+    startMigration(length);
+    finishMigration();
+  }
+
+  /**
+   *  Rehashes into a table of the given number of slots:  all at once
+   *  normally, or a few slots at a time in incremental mode.
+   **/
+
+  private void resize(int length) {
+    if (incremental) {
+      startMigration(length);
+    } else {
+      rehash(length);
+    }
+  }
+
+  /**
+   *  Makes the current slot arrays the old ones, and allocates new ones of
+   *  the given length for the entries to migrate into.  Finishes any
+   *  migration already in progress first.
+   **/
+
+  private void startMigration(int length) {
+    finishMigration();
+    oldSlots = slots;
+    oldHashes = hashes;
+    oldMask = mask;
+    migrated = 0;
+    allocate(length);
+  }
+
+  /**
+   *  Moves the entries of up to "steps" old slots into the current table.
+   *  Does nothing if no migration is in progress.
+   **/
+
+  private void migrate(int steps) {
+    if (oldSlots == null) {
+      return;
+    }
+    int end = Math.min(oldSlots.length, migrated + steps);
+    for (; migrated < end; migrated++) {
+      Entry e = oldSlots[migrated];
+      if (e != null && e != TOMBSTONE) {
+        int h = oldHashes[migrated];
+        int i = h & mask;
+        Entry x;
+        while ((x = slots[i]) != null && x != TOMBSTONE) {
+          i = (i + 1) & mask;
+        }
+        if (x == null) {
+          used++;
+        }
+        slots[i] = e;
+        hashes[i] = h;
+      }
+    }
+    if (migrated == oldSlots.length) {
+      oldSlots = null;
+      oldHashes = null;
+    }
+  }
+
+  /**
+   *  Moves every remaining old entry into the current table.
+   **/
+
+  private void finishMigration() {
+    if (oldSlots != null) {
+      migrate(oldSlots.length);
+    }
+  }
+
+  /**
+   *  Returns the number of entries stored in the dictionary.  Entries with
+   *  the same key (or even the same key and value) each still count as
+   *  a separate entry.
+   *  @return number of entries in the dictionary.
+   **/
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   *  Tests if the dictionary is empty.
+   *
+   *  @return true if the dictionary has no entries; false otherwise.
+   **/
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   *  Returns the number of slots in the table (during an incremental
+   *  migration, in the old and new tables together).  Together with
+   *  entryAt(), this lets a caller visit every entry exactly once, in slot
+   *  order, without allocating:
+   *
+   *    for (int i = 0; i < table.capacity(); i++) {
+   *      Entry e = table.entryAt(i);
+   *      if (e != null) { ... }
+   *    }
+   *
+   *  The table must not be modified while such a loop is in progress, but
+   *  find() may be called.
+   **/
+
+  public int capacity() {
+    if (oldSlots != null) {
+      return slots.length + oldSlots.length;
+    }
+    return slots.length;
+  }
+
+  /**
+   *  Returns the entry stored in the given slot, or null if the slot is empty
+   *  or held an entry that has been removed.
+   *
+   *  @param slot a slot number between 0 and capacity() - 1.
+   **/
+
+  public Entry entryAt(int slot) {
+    Entry e;
+    if (slot < slots.length) {
+      e = slots[slot];
+    } else if (slot - slots.length < migrated) {
+      return null;                                 // moved to slots already
+    } else {
+      e = oldSlots[slot - slots.length];
+    }
+    if (e == TOMBSTONE) {
+      return null;
+    }
+    return e;
+  }
+
+  /**
+   *  Create a new Entry object referencing the input key and associated value,
+   *  and insert the entry into the dictionary.  Return a reference to the new
+   *  entry.  Multiple entries with the same key (or even the same key and
+   *  value) can coexist in the dictionary.
+   *
+   *  Runs in O(1) expected time.  The first tombstone on the key's probe
+   *  sequence is reused if there is one.
+   *
+   *  @param key the key by which the entry can be retrieved.
+   *  @param value an arbitrary object.
+   *  @return an entry containing the key and value.
+   **/
+
+  public Entry insert(Object key, Object value) {
+    migrate(MIGRATE_STEP);
+    Entry temp = new Entry();
+    temp.key = key;
+    temp.value = value;
+    int h = spread(key.hashCode());
+    int i = h & mask;
+    Entry e;
+    while ((e = slots[i]) != null && e != TOMBSTONE) {
+      i = (i + 1) & mask;
+    }
+    if (e == null) {
+      used++;
+    }
+    slots[i] = temp;
+    hashes[i] = h;
+    size++;
+    if (used > threshold) {
+      // Only grow if live entries alone justify it; otherwise the rehash
+      // just clears out tombstones.
+      resize(size > threshold / 2 ? slots.length << 1 : slots.length);
+    }
+    return temp;
+  }
+
+  /**
+   *  If an entry with the specified key is already in the dictionary, return
+   *  it and leave the dictionary unchanged.  Otherwise insert a new entry
+   *  referencing the key and value, and return that.  The caller can tell
+   *  which happened by checking whether the returned entry's value is
+   *  "value".
+   *
+   *  This costs a single probe sequence, where find() followed by insert()
+   *  would cost two.  Runs in O(1) expected time.
+   *
+   *  @param key the key by which the entry can be retrieved.
+   *  @param value an arbitrary object.
+   *  @return the existing entry with the key, or the new entry.
+   **/
+
+  public Entry insertIfAbsent(Object key, Object value) {
+    migrate(MIGRATE_STEP);
+    int h = spread(key.hashCode());
+    int old = oldIndexOf(key, h);
+    if (old >= 0) {
+      return oldSlots[old];
+    }
+    int i = h & mask;
+    int free = -1;
+    Entry e;
+    while ((e = slots[i]) != null) {
+      if (e == TOMBSTONE) {
+        if (free < 0) {
+          free = i;
+        }
+      } else if (hashes[i] == h && e.key.equals(key)) {
+        return e;
+      }
+      i = (i + 1) & mask;
+    }
+    if (free < 0) {
+      free = i;
+      used++;
+    }
+    Entry temp = new Entry();
+    temp.key = key;
+    temp.value = value;
+    slots[free] = temp;
+    hashes[free] = h;
+    size++;
+    if (used > threshold) {
+      resize(size > threshold / 2 ? slots.length << 1 : slots.length);
+    }
+    return temp;
+  }
+
+  /**
+   *  Makes sure the table can hold at least n entries without rehashing.
+   *  Call this before inserting a large batch of entries whose number is
+   *  known, so the table is rehashed (at most) once instead of once per
+   *  doubling.  Even in incremental mode, this rehashes everything before
+   *  returning.
+   *
+   *  @param n the number of entries the table should be able to hold.
+   **/
+
+  public void ensureCapacity(int n) {
+    int length = slotsFor(n);
+    if (length > slots.length) {
+      rehash(length);
+    }
+  }
+
+  /**
+   *  Shrinks the table to the fewest slots that hold its entries without
+   *  exceeding MAX_LOAD (possibly fewer than it was constructed with), and
+   *  drops all tombstones.  Useful after removing many entries from a table
+   *  that will not grow again soon.  Even in incremental mode, this rehashes
+   *  everything before returning.
+   *
+   *  Runs in O(capacity()) time.
+   **/
+
+  public void trimToSize() {
+    finishMigration();
+    int length = slotsFor(size);
+    if (length < slots.length || used > size) {
+      rehash(length);
+    }
+  }
+
+  /**
+   *  Search for an entry with the specified key.  If such an entry is found,
+   *  return it; otherwise return null.  If several entries have the specified
+   *  key, choose one arbitrarily and return it.
+   *
+   *  Runs in O(1) expected time.
+   *
+   *  @param key the search key.
+   *  @return an entry containing the key and an associated value, or null if
+   *          no entry contains the specified key.
+   **/
+
+  public Entry find(Object key) {
+    int h = spread(key.hashCode());
+    int i = indexOf(key, h);
+    if (i >= 0) {
+      return slots[i];
+    }
+    i = oldIndexOf(key, h);
+    if (i >= 0) {
+      return oldSlots[i];
+    }
+    return null;
+  }
+
+  /**
+   *  Remove an entry with the specified key.  If such an entry is found,
+   *  remove it from the table and return it; otherwise return null.
+   *  If several entries have the specified key, choose one arbitrarily, then
+   *  remove and return it.
+   *
+   *  Runs in O(1) amortized expected time.  The slot is left as a tombstone,
+   *  unless the removal leaves fewer than MIN_LOAD of the slots filled, in
+   *  which case the table is rehashed to half its length.
+   *
+   *  @param key the search key.
+   *  @return an entry containing the key and an associated value, or null if
+   *          no entry contains the specified key.
+   */
+
+  public Entry remove(Object key) {
+    migrate(MIGRATE_STEP);
+    int h = spread(key.hashCode());
+    int i = indexOf(key, h);
+    Entry temp;
+    if (i >= 0) {
+      temp = slots[i];
+      if (slots[(i + 1) & mask] == null) {
+        // Nothing probes past this slot, so it can become empty again.
+        slots[i] = null;
+        used--;
+      } else {
+        slots[i] = TOMBSTONE;
+      }
+    } else {
+      i = oldIndexOf(key, h);
+      if (i < 0) {
+        return null;
+      }
+      temp = oldSlots[i];
+      oldSlots[i] = TOMBSTONE;
+    }
+    size--;
+    if (size < shrinkThreshold) {
+      resize(slots.length >> 1);
+    }
+    return temp;
+  }
+
+  /**
+   *  Remove all entries from the dictionary.  A table that has grown past
+   *  the length it was constructed with goes back to that length; otherwise
+   *  the slot arrays are reused.
+   */
+
+  public void makeEmpty() {
+    size = 0;
+    oldSlots = null;
+    oldHashes = null;
+    if (slots.length > initialLength) {
+      allocate(initialLength);
+      return;
+    }
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = null;
+    }
+    used = 0;
+  }
+
+}
@@ -0,0 +1,482 @@
+/* ConcurrentWUGraph.java */
+
+package graph;
+
+import dict.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The ConcurrentWUGraph class is a WUGraph that many threads can use at
+ * once.  It is meant for graphs that are read far more often than they are
+ * changed.
+ *
+ * Every method that changes the graph takes a StampedLock's write lock, so
+ * changes happen one at a time.  The O(1) queries (vertexCount(),
+ * edgeCount(), isVertex(), vertexId(), vertexAt(), degree(), isEdge() and
+ * weight()) first run with no lock at all, under an optimistic stamp; if a
+ * writer got in the way, the answer is thrown out and the query is run again
+ * under the read lock.  Queries that walk lists (getVertices(),
+ * getNeighbors(), forEachNeighbor(), forEachNeighborId(), forEachEdge() and
+ * freeze()) always take the read lock, which any number of readers may hold
+ * at once.  While a writer is waiting, readers arriving after it wait for
+ * the next write to finish (and are then let in together), so a steady
+ * stream of readers can't starve the writers, and the writers can't starve
+ * the readers either.
+ *
+ * Visitors passed to forEachNeighbor(), forEachNeighborId() and
+ * forEachEdge() run while the read lock is held, and must not change this
+ * graph.  They may query it, though:  a thread that already holds the read
+ * lock takes it again without waiting for writers, since a writer can't get
+ * in until that thread lets go anyway.
+ *
+ * The algorithms in graphalg read a graph through many separate calls.  To
+ * run one on a ConcurrentWUGraph that may change meanwhile, run it on
+ * snapshot() (or use freeze()) instead.
+ */
+
+public class ConcurrentWUGraph extends WUGraph {
+
+  /**
+   * lock guards every field inherited from WUGraph.
+   * writersWaiting is the number of threads waiting for the write lock.
+   * gate is the monitor readers wait on while a writer is waiting.
+   * writesDone counts the writes finished so far, and readersWaiting the
+   *  readers waiting on gate; both are guarded by gate.
+   * readDepth[0] is the number of read locks the current thread holds.
+   */
+
+  private final StampedLock lock = new StampedLock();
+  private final AtomicInteger writersWaiting = new AtomicInteger();
+  private final Object gate = new Object();
+  private int writesDone;
+  private int readersWaiting;
+  private final ThreadLocal<int[]> readDepth = new ThreadLocal<int[]>() {
+    protected int[] initialValue() {
+      return new int[1];
+    }
+  };
+
+  /**
+   * ConcurrentWUGraph() constructs a graph having no vertices or edges.
+   *
+   * Running time:  O(1).
+   */
+  public ConcurrentWUGraph() {
+    super();
+  }
+
+  /**
+   * ConcurrentWUGraph() constructs a graph having no vertices or edges, with
+   * room for roughly the given numbers of vertices and edges.
+   *
+   * Running time:  O(expectedVertices + expectedEdges).
+   */
+  public ConcurrentWUGraph(int expectedVertices, int expectedEdges) {
+    super(expectedVertices, expectedEdges);
+  }
+
+  /**
+   * ConcurrentWUGraph() constructs a graph having no vertices or edges, with
+   * room for roughly the given numbers of vertices and edges, whose tables
+   * resize incrementally if "incremental" is true (see WUGraph).  Writers
+   * then hold the write lock for less time.
+   *
+   * Running time:  O(expectedVertices + expectedEdges).
+   */
+  public ConcurrentWUGraph(int expectedVertices, int expectedEdges,
+                           boolean incremental) {
+    super(expectedVertices, expectedEdges, incremental);
+  }
+
+  /**
+   * snapshot() returns a new, ordinary WUGraph with the same vertices (and
+   * vertex ids) and edges as this graph at one moment.  It does not change
+   * when this graph does.
+   *
+   * Running time:  O(|V| + |E|).
+   */
+  public WUGraph snapshot() {
+    long stamp = readLock();
+    try {
+      int n = vertexLst.size();
+      WUGraph copy = new WUGraph(n, edges.size());
+      for (int i = 0; i < n; i++) {
+        copy.addVertex(vertexIds[i].realVertex);
+      }
+      int slots = edges.capacity();
+      for (int i = 0; i < slots; i++) {
+        Entry entry = edges.entryAt(i);
+        if (entry != null) {
+          Edge e = (Edge) entry.value();
+          copy.addEdge(e.getV1(), e.getV2(), e.weight);
+        }
+      }
+      return copy;
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  /**
+   * readLock() takes the read lock.  StampedLock's own scheduling "does not
+   * consistently prefer readers over writers or vice versa" (its class
+   * documentation), and readLock() gets in whenever the lock isn't
+   * write-locked, even with writers queued.  So if a writer is waiting, wait
+   * on gate until a write has finished first.  Readers that are already
+   * in keep sharing the lock, and all the readers waiting on gate are let in
+   * together.  Release it with unlockRead().
+   *
+   * A thread that already holds the read lock (say, a visitor calling back
+   * into the graph) skips the gate.  Waiting there would deadlock:  the
+   * writer it waits for can't get in until this thread's outer read lock is
+   * released.  tryReadLock() can't fail for such a thread, because nobody
+   * holds the write lock.
+   */
+  private long readLock() {
+    int[] depth = readDepth.get();
+    if (depth[0] > 0) {
+      long stamp = lock.tryReadLock();
+      if (stamp == 0) {
+        stamp = lock.readLock();
+      }
+      depth[0]++;
+      return stamp;
+    }
+    if (writersWaiting.get() > 0) {
+      boolean interrupted = false;
+      synchronized (gate) {
+        int seen = writesDone;
+        readersWaiting++;
+        while (writersWaiting.get() > 0 && writesDone == seen) {
+          try {
+            gate.wait();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+        readersWaiting--;
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    long stamp = lock.readLock();
+    depth[0]++;
+    return stamp;
+  }
+
+  /**
+   * unlockRead() releases a read lock taken by readLock().
+   */
+  private void unlockRead(long stamp) {
+    readDepth.get()[0]--;
+    lock.unlockRead(stamp);
+  }
+
+  /**
+   * writeLock() takes the write lock, counting this thread as waiting until
+   * it has it.  Release it with unlockWrite().
+   */
+  private long writeLock() {
+    writersWaiting.incrementAndGet();
+    try {
+      return lock.writeLock();
+    } finally {
+      writersWaiting.decrementAndGet();
+    }
+  }
+
+  /**
+   * unlockWrite() releases the write lock, and lets in any readers that
+   * were waiting for a write to finish.
+   */
+  private void unlockWrite(long stamp) {
+    lock.unlockWrite(stamp);
+    synchronized (gate) {
+      writesDone++;
+      if (readersWaiting > 0) {
+        gate.notifyAll();
+      }
+    }
+  }
+
+
+  // Optimistic O(1) queries.  Each catches RuntimeException because a read
+  // that races with a writer can see a half-made change; validate() would
+  // fail in that case anyway, and the query is repeated under the read lock.
+
+  public int vertexCount() {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      int result = super.vertexCount();
+      if (lock.validate(stamp)) {
+        return result;
+      }
+    }
+    stamp = readLock();
+    try {
+      return super.vertexCount();
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  public int edgeCount() {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      int result = super.edgeCount();
+      if (lock.validate(stamp)) {
+        return result;
+      }
+    }
+    stamp = readLock();
+    try {
+      return super.edgeCount();
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  public boolean isVertex(Object vertex) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        boolean result = super.isVertex(vertex);
+        if (lock.validate(stamp)) {
+          return result;
+        }
+      } catch (RuntimeException e) {
+        // Retried below, under the read lock.
+      }
+    }
+    stamp = readLock();
+    try {
+      return super.isVertex(vertex);
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  public int vertexId(Object vertex) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        int result = super.vertexId(vertex);
+        if (lock.validate(stamp)) {
+          return result;
+        }
+      } catch (RuntimeException e) {
+        // Retried below, under the read lock.
+      }
+    }
+    stamp = readLock();
+    try {
+      return super.vertexId(vertex);
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  public Object vertexAt(int id) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        Object result = super.vertexAt(id);
+        if (lock.validate(stamp)) {
+          return result;
+        }
+      } catch (RuntimeException e) {
+        // Retried below, under the read lock.
+      }
+    }
+    stamp = readLock();
+    try {
+      return super.vertexAt(id);
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  public int degree(Object vertex) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        int result = super.degree(vertex);
+        if (lock.validate(stamp)) {
+          return result;
+        }
+      } catch (RuntimeException e) {
+        // Retried below, under the read lock.
+      }
+    }
+    stamp = readLock();
+    try {
+      return super.degree(vertex);
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  public boolean isEdge(Object u, Object v) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        boolean result = super.isEdge(u, v);
+        if (lock.validate(stamp)) {
+          return result;
+        }
+      } catch (RuntimeException e) {
+        // Retried below, under the read lock.
+      }
+    }
+    stamp = readLock();
+    try {
+      return super.isEdge(u, v);
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  public int weight(Object u, Object v) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        int result = super.weight(u, v);
+        if (lock.validate(stamp)) {
+          return result;
+        }
+      } catch (RuntimeException e) {
+        // Retried below, under the read lock.
+      }
+    }
+    stamp = readLock();
+    try {
+      return super.weight(u, v);
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  // Queries that walk lists, under the read lock.
+
+  public Object[] getVertices() {
+    long stamp = readLock();
+    try {
+      return super.getVertices();
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  public Neighbors getNeighbors(Object vertex) {
+    long stamp = readLock();
+    try {
+      return super.getNeighbors(vertex);
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  public int forEachNeighbor(Object vertex, NeighborVisitor visitor) {
+    long stamp = readLock();
+    try {
+      return super.forEachNeighbor(vertex, visitor);
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  public int forEachNeighborId(int id, IdNeighborVisitor visitor) {
+    long stamp = readLock();
+    try {
+      return super.forEachNeighborId(id, visitor);
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  public int forEachEdge(EdgeVisitor visitor) {
+    long stamp = readLock();
+    try {
+      return super.forEachEdge(visitor);
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  public CsrGraph freeze() {
+    long stamp = readLock();
+    try {
+      return super.freeze();
+    } finally {
+      unlockRead(stamp);
+    }
+  }
+
+  // Changes, under the write lock.
+
+  public void addVertex(Object vertex) {
+    long stamp = writeLock();
+    try {
+      super.addVertex(vertex);
+    } finally {
+      unlockWrite(stamp);
+    }
+  }
+
+  public void removeVertex(Object vertex) {
+    long stamp = writeLock();
+    try {
+      super.removeVertex(vertex);
+    } finally {
+      unlockWrite(stamp);
+    }
+  }
+
+  public void addEdge(Object u, Object v, int weight) {
+    long stamp = writeLock();
+    try {
+      super.addEdge(u, v, weight);
+    } finally {
+      unlockWrite(stamp);
+    }
+  }
+
+  public void addEdges(Object[] us, Object[] vs, int[] weights, int n) {
+    long stamp = writeLock();
+    try {
+      super.addEdges(us, vs, weights, n);
+    } finally {
+      unlockWrite(stamp);
+    }
+  }
+
+  public void removeEdge(Object u, Object v) {
+    long stamp = writeLock();
+    try {
+      super.removeEdge(u, v);
+    } finally {
+      unlockWrite(stamp);
+    }
+  }
+
+  public void ensureCapacity(int vertexCount, int edgeCount) {
+    long stamp = writeLock();
+    try {
+      super.ensureCapacity(vertexCount, edgeCount);
+    } finally {
+      unlockWrite(stamp);
+    }
+  }
+
+  public void trimToSize() {
+    long stamp = writeLock();
+    try {
+      super.trimToSize();
+    } finally {
+      unlockWrite(stamp);
+    }
+  }
+
+}
@@ -0,0 +1,154 @@
+/* CsrGraph.java */
+
+package graph;
+
+import list.*;
+import dict.*;
+
+/**
+ * The CsrGraph class is an immutable snapshot of a WUGraph in compressed
+ * sparse row form, made by WUGraph.freeze().  Vertices are numbered
+ * 0...vertexCount() - 1 with the ids they had in the WUGraph, and the
+ * half-edges leaving vertex i occupy the slots edgeStart(i)...edgeEnd(i) - 1
+ * of two flat arrays holding the id of the neighbor and the weight of the
+ * edge.  As in WUGraph, a self-edge appears once in its vertex's adjacency
+ * list, and every other edge appears twice (once for each endpoint).
+ *
+ * Changes made to the WUGraph after freeze() are not reflected here.
+ */
+
+public class CsrGraph {
+
+  /**
+   * vertexObjects holds the application's vertex objects, indexed by id.
+   * ids maps each vertex object to its (Integer) id.
+   * offsets has length vertexCount() + 1; the half-edges of vertex i are in
+   *  slots offsets[i]...offsets[i + 1] - 1.
+   * targets and weights hold the neighbor id and weight of each half-edge.
+   * edgeCount is the number of (undirected) edges.
+   */
+
+  protected Object[] vertexObjects;
+  protected HashTableOpen ids;
+  protected int[] offsets;
+  protected int[] targets;
+  protected int[] weights;
+  protected int edgeCount;
+
+  /**
+   * Builds the snapshot of g.  Only called by WUGraph.freeze().
+   *
+   * Running time:  O(|V| + |E|).
+   */
+
+  protected CsrGraph(WUGraph g) {
+    int n = g.vertexCount();
+    vertexObjects = new Object[n];
+    ids = new HashTableOpen(n);
+    offsets = new int[n + 1];
+    edgeCount = g.edgeCount();
+
+    for (int i = 0; i < n; i++) {
+      VertexNode v = g.vertexIds[i];
+      vertexObjects[i] = v.realVertex;
+      ids.insert(v.realVertex, i);
+      offsets[i + 1] = offsets[i] + v.getDegree();
+    }
+
+    targets = new int[offsets[n]];
+    weights = new int[offsets[n]];
+    try {
+      for (int i = 0; i < n; i++) {
+        DListNode current = (DListNode) g.vertexIds[i].adjacentEdges.front();
+        for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+          Edge e = (Edge) current.item();
+          targets[j] = e.vertex2.id;
+          weights[j] = e.weight;
+          current = (DListNode) current.next();
+        }
+      }
+    } catch(InvalidNodeException e) {
+      System.out.println("That shouldn't happen.");
+    }
+  }
+
+  /**
+   * vertexCount() returns the number of vertices in the snapshot.
+   *
+   * Running time:  O(1).
+   */
+  public int vertexCount() {
+    return vertexObjects.length;
+  }
+
+  /**
+   * edgeCount() returns the number of edges in the snapshot.
+   *
+   * Running time:  O(1).
+   */
+  public int edgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * vertex() returns the application's object for the vertex numbered "id".
+   *
+   * Running time:  O(1).
+   */
+  public Object vertex(int id) {
+    return vertexObjects[id];
+  }
+
+  /**
+   * id() returns the number of the vertex whose object is "vertex", or -1 if
+   * "vertex" is not a vertex of the snapshot.
+   *
+   * Running time:  O(1).
+   */
+  public int id(Object vertex) {
+    Entry e = ids.find(vertex);
+    if (e == null) {
+      return -1;
+    }
+    return (Integer) e.value();
+  }
+
+  /**
+   * degree() returns the degree of the vertex numbered "id".  Self-edges add
+   * only one to the degree of a vertex.
+   *
+   * Running time:  O(1).
+   */
+  public int degree(int id) {
+    return offsets[id + 1] - offsets[id];
+  }
+
+  /**
+   * edgeStart() and edgeEnd() return the first slot, and one past the last
+   * slot, of the half-edges leaving the vertex numbered "id".
+   *
+   * Running time:  O(1).
+   */
+  public int edgeStart(int id) {
+    return offsets[id];
+  }
+
+  public int edgeEnd(int id) {
+    return offsets[id + 1];
+  }
+
+  /**
+   * target() and weight() return the neighbor id and the weight of the
+   * half-edge in slot "slot".
+   *
+   * Running time:  O(1).
+   */
+  public int target(int slot) {
+    return targets[slot];
+  }
+
+  public int weight(int slot) {
+    return weights[slot];
+  }
+
+}
@@ -60,10 +60,14 @@ class Edge {
 
   /**
   * Setters methods for changing the weight of the edge and setting its partner.
+  * setWeight changes the partner's weight too.
   */
 
   protected void setWeight(int newWeight) {
     weight = newWeight;
+    if (partner != null) {
+      partner.weight = newWeight;
+    }
   }
 
   protected void setPartner() {
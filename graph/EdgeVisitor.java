@@ -0,0 +1,20 @@
+/* EdgeVisitor.java */
+
+package graph;
+
+/**
+ * An EdgeVisitor is called back by WUGraph.forEachEdge() once for each edge
+ * of a graph, so that the edges can be enumerated without going through
+ * getNeighbors() and without allocating.
+ */
+
+public interface EdgeVisitor {
+
+  /**
+   * visit() is called with the ids of the two endpoints of an edge and its
+   * weight.  For a self-edge, u == v.  WUGraph.vertexAt() maps an id back to
+   * the application's vertex object.
+   */
+  public void visit(int u, int v, int weight);
+
+}
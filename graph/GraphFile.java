@@ -0,0 +1,274 @@
+/* GraphFile.java */
+
+package graph;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The GraphFile class saves graphs to disk in a compact binary format, and
+ * maps saved graphs back into memory as MappedGraphs.
+ *
+ * A graph file holds a CsrGraph:  a 32-byte header, then the offsets,
+ * targets and weights arrays exactly as CsrGraph keeps them, then the vertex
+ * table.  The vertex table is an array of n + 1 longs followed by a record
+ * for each vertex object; vertex i's record runs from the i-th long to the
+ * (i + 1)-th, counted from the end of the array.  Every number is
+ * big-endian.  The int arrays start at multiples of 4 bytes, and the long
+ * array at a multiple of 8.
+ *
+ *   int  MAGIC
+ *   int  VERSION
+ *   int  number of vertices (n)
+ *   int  number of edges
+ *   int  number of half-edges (slots)
+ *   int  0
+ *   long 0
+ *   int  offsets[n + 1], int targets[slots], int weights[slots]
+ *   int  0, if needed to reach a multiple of 8
+ *   long vertex positions[n + 1], then the vertex records
+ *
+ * A vertex record is a one-byte kind followed by the vertex:
+ *
+ *   VERTEX_INTEGER  int
+ *   VERTEX_LONG     long
+ *   VERTEX_STRING   the string's UTF-8 bytes
+ *   VERTEX_OBJECT   the object, written with Java serialization
+ *
+ * So Integer, Long and String vertices take only a few bytes each, and can
+ * be read back quickly.  Any other vertex object must be Serializable, and
+ * its record carries a serialization stream header of its own, so that
+ * each vertex can still be read by itself.
+ */
+
+public class GraphFile {
+
+  /**
+   * MAGIC is the first int of every graph file ("WUGF" in ASCII).
+   * VERSION is the version of the format written by this class.
+   * HEADER_BYTES is the length of the header.
+   */
+
+  public static final int MAGIC = 0x57554746;
+  public static final int VERSION = 2;
+  protected static final int HEADER_BYTES = 32;
+
+  /**
+   * The kinds of vertex record.
+   */
+
+  protected static final byte VERTEX_OBJECT = 0;
+  protected static final byte VERTEX_INTEGER = 1;
+  protected static final byte VERTEX_LONG = 2;
+  protected static final byte VERTEX_STRING = 3;
+
+  /**
+   * write() saves the graph g to "file", replacing anything already there.
+   * The WUGraph is frozen first, so its vertices get its current ids.
+   *
+   * Running time:  O(|V| + |E|).
+   */
+  public static void write(WUGraph g, File file) throws IOException {
+    write(g.freeze(), file);
+  }
+
+  /**
+   * write() saves the graph g to "file", replacing anything already there.
+   *
+   * Running time:  O(|V| + |E|).
+   */
+  public static void write(CsrGraph g, File file) throws IOException {
+    int n = g.vertexCount();
+    int slots = g.offsets[n];
+    FileOutputStream fileOut = new FileOutputStream(file);
+    try {
+      DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16));
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(n);
+      out.writeInt(g.edgeCount);
+      out.writeInt(slots);
+      out.writeInt(0);
+      out.writeLong(0);
+      writeInts(out, g.offsets, n + 1);
+      writeInts(out, g.targets, slots);
+      writeInts(out, g.weights, slots);
+      long written = weightsStart(n, slots) + 4L * slots;
+      if (written % 8 != 0) {
+        out.writeInt(0);
+      }
+
+      // Write placeholder positions, then the vertices, then go back and
+      // fill in the positions once their lengths are known.
+      long positionsStart = positionsStart(n, slots);
+      for (int i = 0; i <= n; i++) {
+        out.writeLong(0);
+      }
+      long[] positions = new long[n + 1];
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream record = new DataOutputStream(bytes);
+      for (int i = 0; i < n; i++) {
+        bytes.reset();
+        writeVertex(record, g.vertexObjects[i]);
+        record.flush();
+        bytes.writeTo(out);
+        positions[i + 1] = positions[i] + bytes.size();
+      }
+      out.flush();
+
+      FileChannel channel = fileOut.getChannel();
+      ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+      long at = positionsStart;
+      for (int i = 0; i <= n; i++) {
+        buffer.putLong(positions[i]);
+        if (buffer.remaining() < 8 || i == n) {
+          buffer.flip();
+          while (buffer.hasRemaining()) {
+            at += channel.write(buffer, at);
+          }
+          buffer.clear();
+        }
+      }
+    } finally {
+      fileOut.close();
+    }
+  }
+
+  /**
+   * map() maps the graph saved in "file" into memory and returns it.  Only
+   * the header is read now; the adjacency arrays are paged in by the
+   * operating system as they are used, and vertex objects are read when
+   * first asked for.  The MappedGraph should be closed when no longer
+   * needed.
+   *
+   * Running time:  O(1).
+   *
+   * @throws IOException if the file can't be read or is not a graph file
+   *         of this version.
+   */
+  public static MappedGraph map(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    boolean ok = false;
+    try {
+      FileChannel channel = raf.getChannel();
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      while (header.hasRemaining()) {
+        if (channel.read(header, header.position()) < 0) {
+          throw new IOException(file + " is not a graph file");
+        }
+      }
+      header.flip();
+      if (header.getInt() != MAGIC) {
+        throw new IOException(file + " is not a graph file");
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException(file + " has graph file version " + version +
+                              "; expected " + VERSION);
+      }
+      int n = header.getInt();
+      int edgeCount = header.getInt();
+      int slots = header.getInt();
+      if (n < 0 || edgeCount < 0 || slots < 0 ||
+          positionsStart(n, slots) + 8L * (n + 1) > channel.size()) {
+        throw new IOException(file + " is truncated or damaged");
+      }
+      MappedGraph g = new MappedGraph(channel, n, edgeCount, slots);
+      ok = true;
+      return g;
+    } finally {
+      if (!ok) {
+        raf.close();
+      }
+    }
+  }
+
+  /**
+   * The file offsets at which each array begins.
+   */
+
+  protected static long offsetsStart() {
+    return HEADER_BYTES;
+  }
+
+  protected static long targetsStart(int n) {
+    return offsetsStart() + 4L * (n + 1);
+  }
+
+  protected static long weightsStart(int n, int slots) {
+    return targetsStart(n) + 4L * slots;
+  }
+
+  protected static long positionsStart(int n, int slots) {
+    long end = weightsStart(n, slots) + 4L * slots;
+    return (end + 7) & ~7L;
+  }
+
+  /**
+   * Writes the record for vertex object "vertex" to "out".
+   */
+  private static void writeVertex(DataOutputStream out, Object vertex)
+    throws IOException {
+    if (vertex instanceof Integer) {
+      out.writeByte(VERTEX_INTEGER);
+      out.writeInt((Integer) vertex);
+    } else if (vertex instanceof Long) {
+      out.writeByte(VERTEX_LONG);
+      out.writeLong((Long) vertex);
+    } else if (vertex instanceof String) {
+      out.writeByte(VERTEX_STRING);
+      out.write(((String) vertex).getBytes(StandardCharsets.UTF_8));
+    } else {
+      out.writeByte(VERTEX_OBJECT);
+      ObjectOutputStream objects = new ObjectOutputStream(out);
+      objects.writeObject(vertex);
+      objects.flush();
+    }
+  }
+
+  /**
+   * Reads a vertex record "length" bytes long from "in", and returns the
+   * vertex object.
+   *
+   * @throws IOException if the record can't be read or is damaged.
+   */
+  protected static Object readVertex(DataInput in, int length)
+    throws IOException {
+    byte kind = in.readByte();
+    if (kind == VERTEX_INTEGER && length == 5) {
+      return Integer.valueOf(in.readInt());
+    }
+    if (kind == VERTEX_LONG && length == 9) {
+      return Long.valueOf(in.readLong());
+    }
+    if (kind != VERTEX_STRING && kind != VERTEX_OBJECT) {
+      throw new IOException("damaged vertex record");
+    }
+    byte[] bytes = new byte[length - 1];
+    in.readFully(bytes);
+    if (kind == VERTEX_STRING) {
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+    ObjectInputStream objects =
+      new ObjectInputStream(new ByteArrayInputStream(bytes));
+    try {
+      return objects.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Writes a[0...count - 1] to "out".
+   */
+  private static void writeInts(DataOutputStream out, int[] a, int count)
+    throws IOException {
+    for (int i = 0; i < count; i++) {
+      out.writeInt(a[i]);
+    }
+  }
+
+}
@@ -0,0 +1,20 @@
+/* IdNeighborVisitor.java */
+
+package graph;
+
+/**
+ * An IdNeighborVisitor is called back by WUGraph.forEachNeighborId() once for
+ * each edge incident on a vertex.  It is like a NeighborVisitor, but is given
+ * the neighbor's id instead of its object, so algorithms that keep their
+ * state in arrays indexed by id never need to look a vertex up.
+ */
+
+public interface IdNeighborVisitor {
+
+  /**
+   * visit() is called with the id of the vertex at the other end of an edge,
+   * and the weight of that edge.
+   */
+  public void visit(int neighbor, int weight);
+
+}
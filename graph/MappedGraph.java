@@ -0,0 +1,258 @@
+/* MappedGraph.java */
+
+package graph;
+
+import dict.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+/**
+ * The MappedGraph class is a graph saved by GraphFile.write(), mapped into
+ * memory by GraphFile.map().  It answers the same queries as CsrGraph, with
+ * the same vertex ids, but reads its arrays straight from the mapped file,
+ * so opening even a very large graph takes almost no time; pages of the
+ * file are read in by the operating system as they are touched.
+ *
+ * Vertex objects are read one at a time, the first time vertex() returns
+ * them.  The first call to id() reads them all, in one pass through the
+ * vertex table, to build a table from objects to ids.
+ *
+ * A MappedGraph never changes.  Any number of threads may query it at once.
+ * close() releases the file; after that, only the adjacency queries (not
+ * vertex() or id() for vertices not yet read) still work.
+ */
+
+public class MappedGraph implements Closeable {
+
+  /**
+   * A Region is part of the file mapped into memory.  A single mapping can
+   * be at most 2 GB long, so a Region is mapped in chunks of 2^CHUNK_SHIFT
+   * bytes.  Regions hold only ints or only longs, so none straddles two
+   * chunks.
+   */
+
+  private static final int CHUNK_SHIFT = 30;
+  private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+  private static class Region {
+    private ByteBuffer[] chunks;
+
+    private Region(FileChannel channel, long start, long length)
+      throws IOException {
+      chunks = new ByteBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT)];
+      for (int c = 0; c < chunks.length; c++) {
+        long offset = (long) c << CHUNK_SHIFT;
+        long size = Math.min(length - offset, 1L << CHUNK_SHIFT);
+        MappedByteBuffer chunk =
+          channel.map(FileChannel.MapMode.READ_ONLY, start + offset, size);
+        chunks[c] = chunk;
+      }
+    }
+
+    private int getInt(long i) {
+      long at = i << 2;
+      ByteBuffer chunk = chunks[(int) (at >>> CHUNK_SHIFT)];
+      return chunk.getInt((int) (at & CHUNK_MASK));
+    }
+
+    private long getLong(long i) {
+      long at = i << 3;
+      ByteBuffer chunk = chunks[(int) (at >>> CHUNK_SHIFT)];
+      return chunk.getLong((int) (at & CHUNK_MASK));
+    }
+  }
+
+  /**
+   * channel is the open graph file.
+   * offsets, targets and weights are laid out as in CsrGraph.
+   * positions[i] is where vertex i's record begins, counted from
+   *  vertexStart; positions[n] is the end of the last one.
+   * vertexObjects caches the vertex objects already read.
+   * ids maps each vertex object to its (Integer) id, once id() is called.
+   */
+
+  private FileChannel channel;
+  private int vertexCount;
+  private int edgeCount;
+  private Region offsets;
+  private Region targets;
+  private Region weights;
+  private Region positions;
+  private long vertexStart;
+  private Object[] vertexObjects;
+  private HashTableOpen ids;
+
+  /**
+   * Maps the arrays of a graph file whose header has already been checked.
+   * Only called by GraphFile.map().
+   *
+   * Running time:  O(1), not counting the (lazy) mapping itself.
+   */
+  protected MappedGraph(FileChannel channel, int n, int edgeCount, int slots)
+    throws IOException {
+    this.channel = channel;
+    this.vertexCount = n;
+    this.edgeCount = edgeCount;
+    offsets = new Region(channel, GraphFile.offsetsStart(), 4L * (n + 1));
+    targets = new Region(channel, GraphFile.targetsStart(n), 4L * slots);
+    weights = new Region(channel, GraphFile.weightsStart(n, slots),
+                         4L * slots);
+    long positionsStart = GraphFile.positionsStart(n, slots);
+    positions = new Region(channel, positionsStart, 8L * (n + 1));
+    vertexStart = positionsStart + 8L * (n + 1);
+    vertexObjects = new Object[n];
+  }
+
+  /**
+   * vertexCount() returns the number of vertices in the graph.
+   *
+   * Running time:  O(1).
+   */
+  public int vertexCount() {
+    return vertexCount;
+  }
+
+  /**
+   * edgeCount() returns the number of edges in the graph.
+   *
+   * Running time:  O(1).
+   */
+  public int edgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * vertex() returns the application's object for the vertex numbered "id",
+   * reading it from the file if this is the first time it's asked for.
+   *
+   * Running time:  O(1), plus the time to read the object.
+   *
+   * @throws UncheckedIOException if the vertex can't be read.
+   */
+  public synchronized Object vertex(int id) {
+    if (id < 0 || id >= vertexCount) {
+      throw new IndexOutOfBoundsException("no vertex numbered " + id);
+    }
+    if (vertexObjects[id] == null) {
+      vertexObjects[id] = readVertex(id);
+    }
+    return vertexObjects[id];
+  }
+
+  /**
+   * id() returns the number of the vertex whose object is "vertex", or -1 if
+   * "vertex" is not a vertex of the graph.  The first call reads every
+   * vertex object.
+   *
+   * Running time:  O(1), except the first call, which takes O(|V|).
+   *
+   * @throws UncheckedIOException if the vertices can't be read.
+   */
+  public synchronized int id(Object vertex) {
+    if (ids == null) {
+      readAllVertices();
+      HashTableOpen table = new HashTableOpen(vertexCount);
+      for (int i = 0; i < vertexCount; i++) {
+        table.insert(vertexObjects[i], i);
+      }
+      ids = table;
+    }
+    Entry e = ids.find(vertex);
+    if (e == null) {
+      return -1;
+    }
+    return (Integer) e.value();
+  }
+
+  /**
+   * degree() returns the degree of the vertex numbered "id".  Self-edges add
+   * only one to the degree of a vertex.
+   *
+   * Running time:  O(1).
+   */
+  public int degree(int id) {
+    return offsets.getInt(id + 1) - offsets.getInt(id);
+  }
+
+  /**
+   * edgeStart() and edgeEnd() return the first slot, and one past the last
+   * slot, of the half-edges leaving the vertex numbered "id".
+   *
+   * Running time:  O(1).
+   */
+  public int edgeStart(int id) {
+    return offsets.getInt(id);
+  }
+
+  public int edgeEnd(int id) {
+    return offsets.getInt(id + 1);
+  }
+
+  /**
+   * target() and weight() return the neighbor id and the weight of the
+   * half-edge in slot "slot".
+   *
+   * Running time:  O(1).
+   */
+  public int target(int slot) {
+    return targets.getInt(slot);
+  }
+
+  public int weight(int slot) {
+    return weights.getInt(slot);
+  }
+
+  /**
+   * close() closes the graph file.  Mapped memory is released once the
+   * MappedGraph is garbage collected.
+   */
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Reads the object for vertex "id".
+   */
+  private Object readVertex(int id) {
+    long start = positions.getLong(id);
+    int length = (int) (positions.getLong(id + 1) - start);
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    long at = vertexStart + start;
+    try {
+      while (buffer.hasRemaining()) {
+        int read = channel.read(buffer, at + buffer.position());
+        if (read < 0) {
+          throw new EOFException("graph file ends inside vertex " + id);
+        }
+      }
+      return GraphFile.readVertex(
+        new DataInputStream(new ByteArrayInputStream(buffer.array())), length);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Reads every vertex object in one sequential pass through the vertex
+   * table, keeping the objects already read by vertex().
+   */
+  private void readAllVertices() {
+    try {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(
+        Channels.newInputStream(channel.position(vertexStart)), 1 << 16));
+      for (int i = 0; i < vertexCount; i++) {
+        int length = (int) (positions.getLong(i + 1) - positions.getLong(i));
+        Object v = GraphFile.readVertex(in, length);
+        if (vertexObjects[i] == null) {
+          vertexObjects[i] = v;
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+}
@@ -0,0 +1,19 @@
+/* NeighborVisitor.java */
+
+package graph;
+
+/**
+ * A NeighborVisitor is called back by WUGraph.forEachNeighbor() once for each
+ * edge incident on a vertex, so that the neighbors can be examined without
+ * allocating a Neighbors object or arrays.
+ */
+
+public interface NeighborVisitor {
+
+  /**
+   * visit() is called with the object at the other end of an edge, and the
+   * weight of that edge.
+   */
+  public void visit(Object neighbor, int weight);
+
+}
@@ -19,12 +19,14 @@ class VertexNode {
   * realVertex is the Object used to make this VertexNode.
   * node is the DListNode in which this vertex is stored, in the vertices list
   *  of its graph.
+  * id is this vertex's dense integer id in its graph (see WUGraph.vertexId()).
   */
 
   protected WUGraph myGraph;
   protected DList adjacentEdges;
   protected Object realVertex;
   protected DListNode node;
+  protected int id;
 
   /**
   * Makes a new VertexNode object given its graph and the initializing object.
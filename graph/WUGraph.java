@@ -13,8 +13,9 @@ import dict.*;
 public class WUGraph {
 	
   protected DList vertexLst;
-  protected HashTableChained vertices;
-  protected HashTableChained edges;
+  protected HashTableOpen vertices;
+  protected HashTableOpen edges;
+  protected VertexNode[] vertexIds;
 
   /**
    * WUGraph() constructs a graph having no vertices or edges.
@@ -23,9 +24,37 @@ public class WUGraph {
    */
    
   public WUGraph() {
+    this(10, 10);
+  }
+
+  /**
+   * WUGraph() constructs a graph having no vertices or edges, with room for
+   * roughly expectedVertices vertices and expectedEdges edges before any of
+   * its tables have to grow.
+   *
+   * Running time:  O(expectedVertices + expectedEdges).
+   */
+  public WUGraph(int expectedVertices, int expectedEdges) {
+    this(expectedVertices, expectedEdges, false);
+  }
+
+  /**
+   * WUGraph() constructs a graph having no vertices or edges, with room for
+   * roughly expectedVertices vertices and expectedEdges edges.  If
+   * "incremental" is true, the graph's hash tables resize in incremental
+   * mode (see HashTableOpen):  no single addVertex(), addEdge(),
+   * removeVertex() or removeEdge() rehashes a whole table, at the cost of
+   * keeping the old table around while its entries move across.
+   * addEdges(), ensureCapacity() and trimToSize() still rehash all at once.
+   *
+   * Running time:  O(expectedVertices + expectedEdges).
+   */
+  public WUGraph(int expectedVertices, int expectedEdges,
+                 boolean incremental) {
     vertexLst = new DList();
-    vertices = new HashTableChained(10);
-    edges = new HashTableChained(10);
+    vertices = new HashTableOpen(expectedVertices, incremental);
+    edges = new HashTableOpen(expectedEdges, incremental);
+    vertexIds = new VertexNode[Math.max(expectedVertices, 1)];
   }
 
   /**
@@ -60,7 +89,7 @@ public class WUGraph {
    */
   public Object[] getVertices() {
     DListNode curr = (DListNode) vertexLst.front();
-    Object[] v = new Object[this.vertexCount()];
+    Object[] v = new Object[vertexLst.size()];
     int i = 0;
     while (curr.isValidNode()) {
       try {
@@ -83,13 +112,21 @@ public class WUGraph {
    * Running time:  O(1).
    */
   public void addVertex(Object vertex) {
-    if (isVertex(vertex)) {
+    if (getVertex(vertex) != null) {
       return;
     }
     VertexNode v = new VertexNode(this, vertex);
     vertices.insert(vertex, v);
     vertexLst.insertFront(v);
     v.node = (DListNode) vertexLst.front();
+    int n = vertexLst.size() - 1;
+    if (n == vertexIds.length) {
+      VertexNode[] bigger = new VertexNode[2 * n];
+      System.arraycopy(vertexIds, 0, bigger, 0, n);
+      vertexIds = bigger;
+    }
+    v.id = n;
+    vertexIds[n] = v;
   }
 
   /**
@@ -100,17 +137,17 @@ public class WUGraph {
    * Running time:  O(d), where d is the degree of "vertex".
    */
   public void removeVertex(Object vertex) {
-    if (!(isVertex(vertex))) {
+    VertexNode v = getVertex(vertex);
+    if (v == null) {
       return;
     }
-    VertexNode v = getVertex(vertex);
     if (v.getDegree() > 0) {
       DListNode current = (DListNode) v.adjacentEdges.front();
       try {
         while (current.isValidNode()) {
           Edge e = (Edge) current.item();
           current = (DListNode) current.next();
-          removeEdge(e.getV1(), e.getV2());
+          unlinkEdge(e);
         }
       } catch(InvalidNodeException e) {
         System.out.println("That shouldn't happen.");
@@ -122,6 +159,12 @@ public class WUGraph {
     } catch (InvalidNodeException e) {
       System.out.println("That shouldn't happen.");
     }
+    // Keep ids dense by moving the vertex with the highest id into the hole.
+    int last = vertexLst.size();
+    VertexNode moved = vertexIds[last];
+    moved.id = v.id;
+    vertexIds[v.id] = moved;
+    vertexIds[last] = null;
   }
 
   /**
@@ -137,10 +180,43 @@ public class WUGraph {
     return false;
   }
 
+  /**
+   * vertexId() returns the id of a vertex:  an int between 0 and
+   * vertexCount() - 1 that no other vertex of the graph shares, suitable for
+   * indexing arrays (such as a DisjointSets) directly.  Returns -1 if the
+   * parameter "vertex" does not represent a vertex of the graph.
+   *
+   * A vertex keeps its id until it is removed.  removeVertex() gives the
+   * removed vertex's id to the vertex that had the highest id, so ids stay
+   * dense; no other vertex's id changes.
+   *
+   * Running time:  O(1).
+   */
+  public int vertexId(Object vertex) {
+    VertexNode v = getVertex(vertex);
+    if (v == null) {
+      return -1;
+    }
+    return v.id;
+  }
+
+  /**
+   * vertexAt() returns the object that serves as the vertex whose id is "id".
+   * "id" must be between 0 and vertexCount() - 1.
+   *
+   * Running time:  O(1).
+   */
+  public Object vertexAt(int id) {
+    return vertexIds[id].realVertex;
+  }
+
   /**
   * Private helper functions that return internal representations of 
   * vertices and edges, via the hash tables.
   * Returns null in both cases if the vertex or edge does not exist in this graph.
+  *
+  * Public methods use these (and never each other), so a subclass can wrap
+  * any public method without being re-entered through another one.
   */
 
   private VertexNode getVertex(Object vertex) {
@@ -153,12 +229,10 @@ public class WUGraph {
   }
 
   private Edge getEdge(Object u, Object v) {
-    if (isVertex(u) && isVertex(v)) {
-      VertexPair vp = new VertexPair(u,v);
-      Entry e = edges.find(vp);
-      if (e != null) {
-        return (Edge) e.value();
-      }
+    // No vertex lookups needed:  only vertices appear in edge keys.
+    Entry e = edges.find(new VertexPair(u,v));
+    if (e != null) {
+      return (Edge) e.value();
     }
     return null;
   }
@@ -197,18 +271,18 @@ public class WUGraph {
    * Running time:  O(d), where d is the degree of "vertex".
    */
   public Neighbors getNeighbors(Object vertex) {
-    if (!(isVertex(vertex))) {
+    VertexNode v = getVertex(vertex);
+    if (v == null) {
       return null;
     }
-    Neighbors result = new Neighbors();
-    int d = degree(vertex);
+    int d = v.getDegree();
     if (d == 0) {
       return null;
     }
-    DList edges = getVertex(vertex).adjacentEdges;
+    Neighbors result = new Neighbors();
     result.neighborList = new Object[d];
     result.weightList = new int[d];
-    DListNode current = (DListNode) edges.front();
+    DListNode current = (DListNode) v.adjacentEdges.front();
     for (int i = 0; i < d; i++) {
       try {
         Edge currE = (Edge) current.item();
@@ -222,6 +296,89 @@ public class WUGraph {
     return result;
   }
 
+  /**
+   * forEachNeighbor() calls visitor.visit() once for each edge incident on
+   * the input vertex, passing the object at the other end of the edge and the
+   * edge's weight, in the same order getNeighbors() would list them.  Returns
+   * the number of edges visited, which is zero if the parameter "vertex" does
+   * not represent a vertex of the graph.
+   *
+   * Unlike getNeighbors(), this looks "vertex" up only once and allocates
+   * nothing.  The visitor must not add or remove edges of this vertex.
+   *
+   * Running time:  O(d), where d is the degree of "vertex".
+   */
+  public int forEachNeighbor(Object vertex, NeighborVisitor visitor) {
+    VertexNode v = getVertex(vertex);
+    if (v == null) {
+      return 0;
+    }
+    int d = v.getDegree();
+    DListNode current = (DListNode) v.adjacentEdges.front();
+    try {
+      while (current.isValidNode()) {
+        Edge currE = (Edge) current.item();
+        visitor.visit(currE.vertex2.realVertex, currE.weight);
+        current = (DListNode) current.next();
+      }
+    } catch(InvalidNodeException e) {
+      System.out.println("That shouldn't happen.");
+    }
+    return d;
+  }
+
+  /**
+   * forEachNeighborId() is like forEachNeighbor(), but names vertices by id
+   * (see vertexId()):  it visits the edges incident on the vertex whose id is
+   * "id", passing the id of the vertex at the other end of each edge and the
+   * edge's weight.  "id" must be between 0 and vertexCount() - 1.  Returns
+   * the number of edges visited.
+   *
+   * This does no hash table lookups at all.  The visitor must not add or
+   * remove edges of this vertex.
+   *
+   * Running time:  O(d), where d is the degree of the vertex.
+   */
+  public int forEachNeighborId(int id, IdNeighborVisitor visitor) {
+    VertexNode v = vertexIds[id];
+    int d = v.getDegree();
+    DListNode current = (DListNode) v.adjacentEdges.front();
+    try {
+      while (current.isValidNode()) {
+        Edge currE = (Edge) current.item();
+        visitor.visit(currE.vertex2.id, currE.weight);
+        current = (DListNode) current.next();
+      }
+    } catch(InvalidNodeException e) {
+      System.out.println("That shouldn't happen.");
+    }
+    return d;
+  }
+
+  /**
+   * forEachEdge() calls visitor.visit() exactly once for each edge of the
+   * graph (including self-edges), passing the ids (see vertexId()) of its two
+   * endpoints and its weight.
+   * The edges are visited in no particular order, and the order of the two
+   * endpoints is arbitrary.  Returns the number of edges visited.
+   *
+   * The edges are read straight out of the graph's edge table, so this
+   * allocates nothing.  The visitor must not add or remove edges.
+   *
+   * Running time:  O(|E|).
+   */
+  public int forEachEdge(EdgeVisitor visitor) {
+    int n = edges.capacity();
+    for (int i = 0; i < n; i++) {
+      Entry entry = edges.entryAt(i);
+      if (entry != null) {
+        Edge e = (Edge) entry.value();
+        visitor.visit(e.vertex1.id, e.vertex2.id, e.weight);
+      }
+    }
+    return edges.size();
+  }
+
   /**
    * addEdge() adds an edge (u, v) to the graph.  If either of the parameters
    * u and v does not represent a vertex of the graph, the graph is unchanged.
@@ -232,21 +389,102 @@ public class WUGraph {
    * Running time:  O(1).
    */
   public void addEdge(Object u, Object v, int weight) {
-    if (isEdge(u,v)) {
-      Edge e = getEdge(u,v);
-      e.setWeight(weight);
-      return;
-    }
     VertexNode v1 = getVertex(u);
     VertexNode v2 = getVertex(v);
+    if (v1 == null || v2 == null) {
+      return;
+    }
+    linkEdge(v1, v2, weight);
+  }
+
+  /**
+   * addEdges() adds the edges (us[i], vs[i]) with weights weights[i], for i
+   * from 0 to n - 1, exactly as n calls to addEdge() would, but faster:  the
+   * edge table is grown once up front, consecutive edges that share an
+   * endpoint look it up only once, and each edge costs a single probe of the
+   * edge table.  Listing edges grouped by their first endpoint makes the
+   * most of this.
+   *
+   * Running time:  O(n).
+   */
+  public void addEdges(Object[] us, Object[] vs, int[] weights, int n) {
+    edges.ensureCapacity(edges.size() + n);
+    Object lastU = null;
+    Object lastV = null;
+    VertexNode v1 = null;
+    VertexNode v2 = null;
+    for (int i = 0; i < n; i++) {
+      if (us[i] != lastU) {
+        lastU = us[i];
+        v1 = getVertex(lastU);
+      }
+      if (vs[i] != lastV) {
+        lastV = vs[i];
+        v2 = getVertex(lastV);
+      }
+      if (v1 != null && v2 != null) {
+        linkEdge(v1, v2, weights[i]);
+      }
+    }
+  }
+
+  /**
+   * Private helper for addEdge() and addEdges().  Adds an edge between the
+   * two vertices, or updates its weight if it is already there, with one
+   * probe of the edge table.
+   */
+  private void linkEdge(VertexNode v1, VertexNode v2, int weight) {
     Edge e = new Edge(this, weight, v1, v2);
+    //Only 1 of the 2 "half-edges" is inserted.
+    Entry entry = edges.insertIfAbsent(e.getVertexPair(), e);
+    if (entry.value() != e) {
+      ((Edge) entry.value()).setWeight(weight);
+      return;
+    }
     e.setPartner();
     v1.addEdge(e);
     if (e.partner != null) {
       v2.addEdge(e.partner);
     }
-    VertexPair vp = e.getVertexPair();
-    edges.insert(vp, e); //Only 1 of the 2 "half-edges" is inserted.
+  }
+
+  /**
+   * ensureCapacity() grows the graph's internal tables, if necessary, so
+   * that it can hold "vertexCount" vertices and "edgeCount" edges without
+   * any of them growing again.  Call this before adding many vertices or
+   * edges whose numbers are known.  Only capacity changes; the graph is not.
+   *
+   * Running time:  O(|V| + |E| + vertexCount + edgeCount) if the tables
+   * grow, O(1) otherwise.
+   */
+  public void ensureCapacity(int vertexCount, int edgeCount) {
+    vertices.ensureCapacity(vertexCount);
+    edges.ensureCapacity(edgeCount);
+    if (vertexCount > vertexIds.length) {
+      VertexNode[] bigger = new VertexNode[vertexCount];
+      System.arraycopy(vertexIds, 0, bigger, 0, vertexLst.size());
+      vertexIds = bigger;
+    }
+  }
+
+  /**
+   * trimToSize() shrinks the graph's internal tables to the smallest size
+   * that holds its current vertices and edges.  The tables shrink by
+   * themselves once removals leave them mostly empty; call this to give
+   * back the rest of the memory after removing a large part of the graph
+   * that won't be replaced soon.  Only capacity changes; the graph is not.
+   *
+   * Running time:  O(|V| + |E|) plus the tables' current capacity.
+   */
+  public void trimToSize() {
+    vertices.trimToSize();
+    edges.trimToSize();
+    int n = Math.max(vertexLst.size(), 1);
+    if (n < vertexIds.length) {
+      VertexNode[] smaller = new VertexNode[n];
+      System.arraycopy(vertexIds, 0, smaller, 0, vertexLst.size());
+      vertexIds = smaller;
+    }
   }
 
   /**
@@ -258,17 +496,25 @@ public class WUGraph {
    * Running time:  O(1).
    */
   public void removeEdge(Object u, Object v) {
-    if (isEdge(u,v)) {
-      Edge e = getEdge(u,v);
-      VertexNode v1 = e.vertex1;
-      VertexNode v2 = e.vertex2;
-      v1.removeEdge(e);
-      if (e.partner != null) {
-        v2.removeEdge(e.partner);
-      }
-      VertexPair vp = e.getVertexPair();
-      edges.remove(vp);
+    Edge e = getEdge(u,v);
+    if (e != null) {
+      unlinkEdge(e);
+    }
+  }
+
+  /**
+   * Private helper for removeEdge() and removeVertex().  Removes the edge
+   * that e is either half of from both adjacency lists and the edge table.
+   */
+  private void unlinkEdge(Edge e) {
+    VertexNode v1 = e.vertex1;
+    VertexNode v2 = e.vertex2;
+    v1.removeEdge(e);
+    if (e.partner != null) {
+      v2.removeEdge(e.partner);
     }
+    VertexPair vp = e.getVertexPair();
+    edges.remove(vp);
   }
 
   /**
@@ -300,11 +546,23 @@ public class WUGraph {
    * Running time:  O(1).
    */
   public int weight(Object u, Object v) {
-    if (!(isEdge(u,v))) {
+    Edge e = getEdge(u,v);
+    if (e == null) {
       return 0;
     }
-    Edge e = getEdge(u,v);
     return e.weight;
   }
 
+  /**
+   * freeze() returns an immutable CsrGraph snapshot of this graph, with the
+   * vertices numbered 0...vertexCount() - 1 and each adjacency list stored in
+   * contiguous arrays.  Later changes to this graph do not affect the
+   * snapshot.
+   *
+   * Running time:  O(|V| + |E|).
+   */
+  public CsrGraph freeze() {
+    return new CsrGraph(this);
+  }
+
 }
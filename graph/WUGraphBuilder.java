@@ -0,0 +1,129 @@
+/* WUGraphBuilder.java */
+
+package graph;
+
+/**
+ * A WUGraphBuilder collects vertices and weighted edges and then builds a
+ * WUGraph from all of them at once.  Because build() knows the final numbers
+ * of vertices and edges, it sizes the graph's tables once instead of letting
+ * them double repeatedly, and it adds the edges in one pass with
+ * WUGraph.addEdges().
+ *
+ * As with WUGraph.addEdge(), an edge whose endpoints are not both vertices
+ * is ignored, and if the same edge is given twice the later weight wins.
+ */
+
+public class WUGraphBuilder {
+
+  /**
+   * vertexBuf[0...vertexCount - 1] are the vertices added so far.
+   * uBuf, vBuf and weightBuf [0...edgeCount - 1] are the edges added so far.
+   */
+
+  private Object[] vertexBuf;
+  private int vertexCount;
+  private Object[] uBuf;
+  private Object[] vBuf;
+  private int[] weightBuf;
+  private int edgeCount;
+
+  /**
+   * Makes an empty builder that expects roughly the given numbers of
+   * vertices and edges.  (More may be added; the buffers grow as needed.)
+   */
+  public WUGraphBuilder(int expectedVertices, int expectedEdges) {
+    vertexBuf = new Object[Math.max(expectedVertices, 1)];
+    uBuf = new Object[Math.max(expectedEdges, 1)];
+    vBuf = new Object[uBuf.length];
+    weightBuf = new int[uBuf.length];
+  }
+
+  /**
+   * Makes an empty builder with small default buffers.
+   */
+  public WUGraphBuilder() {
+    this(16, 16);
+  }
+
+  /**
+   * addVertex() adds a vertex.  Adding the same object twice is harmless.
+   *
+   * Running time:  O(1) amortized.
+   */
+  public WUGraphBuilder addVertex(Object vertex) {
+    if (vertexCount == vertexBuf.length) {
+      Object[] bigger = new Object[2 * vertexCount];
+      System.arraycopy(vertexBuf, 0, bigger, 0, vertexCount);
+      vertexBuf = bigger;
+    }
+    vertexBuf[vertexCount] = vertex;
+    vertexCount++;
+    return this;
+  }
+
+  /**
+   * addEdge() adds one (u, v, weight) triple.
+   *
+   * Running time:  O(1) amortized.
+   */
+  public WUGraphBuilder addEdge(Object u, Object v, int weight) {
+    ensureEdgeRoom(edgeCount + 1);
+    uBuf[edgeCount] = u;
+    vBuf[edgeCount] = v;
+    weightBuf[edgeCount] = weight;
+    edgeCount++;
+    return this;
+  }
+
+  /**
+   * addEdges() adds the triples (us[i], vs[i], weights[i]) for i from 0 to
+   * n - 1.
+   *
+   * Running time:  O(n) amortized.
+   */
+  public WUGraphBuilder addEdges(Object[] us, Object[] vs, int[] weights,
+                                 int n) {
+    ensureEdgeRoom(edgeCount + n);
+    System.arraycopy(us, 0, uBuf, edgeCount, n);
+    System.arraycopy(vs, 0, vBuf, edgeCount, n);
+    System.arraycopy(weights, 0, weightBuf, edgeCount, n);
+    edgeCount += n;
+    return this;
+  }
+
+  /**
+   * Grows the edge buffers to hold at least n edges.
+   */
+  private void ensureEdgeRoom(int n) {
+    if (n <= uBuf.length) {
+      return;
+    }
+    int capacity = Math.max(n, 2 * uBuf.length);
+    Object[] biggerU = new Object[capacity];
+    Object[] biggerV = new Object[capacity];
+    int[] biggerW = new int[capacity];
+    System.arraycopy(uBuf, 0, biggerU, 0, edgeCount);
+    System.arraycopy(vBuf, 0, biggerV, 0, edgeCount);
+    System.arraycopy(weightBuf, 0, biggerW, 0, edgeCount);
+    uBuf = biggerU;
+    vBuf = biggerV;
+    weightBuf = biggerW;
+  }
+
+  /**
+   * build() returns a new WUGraph holding every vertex and edge added so
+   * far.  The builder can keep being used afterward; later graphs include
+   * everything added before them.
+   *
+   * Running time:  O(|V| + |E|).
+   */
+  public WUGraph build() {
+    WUGraph g = new WUGraph(vertexCount, edgeCount);
+    for (int i = 0; i < vertexCount; i++) {
+      g.addVertex(vertexBuf[i]);
+    }
+    g.addEdges(uBuf, vBuf, weightBuf, edgeCount);
+    return g;
+  }
+
+}
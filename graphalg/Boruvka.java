@@ -0,0 +1,335 @@
+/* Boruvka.java */
+
+package graphalg;
+
+import graph.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The Boruvka class contains the method minSpanTree(), which computes a
+ * minimum spanning tree with Boruvka's algorithm, running each round in
+ * parallel on the common ForkJoinPool.
+ *
+ * Each round, every component picks its lightest outgoing edge (all edges
+ * are scanned in parallel, and each component's minimum is kept with a
+ * compare-and-set), the picked edges join the tree, and the components they
+ * connect are contracted by parallel pointer jumping:  every component
+ * replaces its parent with its grandparent, all at once, until each points
+ * at a root.  The hooks can form chains as long as the number of
+ * components, but jumping halves their depth each pass, so a round takes
+ * O(|E| + |V| log |V|) work.  Edges inside a single component are then
+ * dropped.  There are at most log |V| rounds.
+ *
+ * Ties between equal weights are broken by edge index, so every component
+ * sees the same total order on edges and the picked edges never form a
+ * cycle.
+ */
+
+public class Boruvka {
+
+  /**
+   * Ranges of at most GRAIN edges or vertices are processed by a single
+   * task rather than being split further.
+   */
+  public static final int GRAIN = 4096;
+
+  /**
+   * The phases of a round, each run by a Step over a range of edges or
+   * vertices.
+   */
+  private static final int RESET = 0;
+  private static final int SELECT = 1;
+  private static final int HOOK = 2;
+  private static final int JUMP = 3;
+  private static final int RELABEL = 4;
+  private static final int COUNT = 5;
+  private static final int COMPACT = 6;
+
+  /**
+   * NONE is the value of best[c] when component c has no outgoing edge.
+   */
+  private static final long NONE = Long.MAX_VALUE;
+
+  /**
+   * edges holds the input graph's edges.
+   * active[0...activeCount - 1] are the indices of the edges whose endpoints
+   *  are (as of the last round) in different components.
+   * comp[x] is the component of vertex x, named by one of its vertices.
+   * parent[c] is the component that component c is merged into this round.
+   * nextParent receives the parents computed by one pass of pointer jumping.
+   * jumped is set by a pass that changed some parent.
+   * best[c] is the lightest edge leaving component c, as ((weight << 32) |
+   *  edge index), or NONE.
+   * inTree[e] is true if edge e has been picked for the tree.
+   * chunkCounts is used to compact the active list in parallel.
+   * nextActive receives the compacted active list, and then trades places
+   *  with active.
+   */
+
+  private EdgeList edges;
+  private int[] active;
+  private int activeCount;
+  private int[] comp;
+  private int[] parent;
+  private int[] nextParent;
+  private volatile boolean jumped;
+  private AtomicLongArray best;
+  private boolean[] inTree;
+  private int[] chunkCounts;
+  private int[] nextActive;
+
+  private Boruvka(WUGraph g) {
+    edges = EdgeList.of(g);
+    int n = g.vertexCount();
+    comp = new int[n];
+    parent = new int[n];
+    nextParent = new int[n];
+    for (int i = 0; i < n; i++) {
+      comp[i] = i;
+    }
+    best = new AtomicLongArray(n);
+    inTree = new boolean[edges.size];
+    active = new int[edges.size];
+    nextActive = new int[edges.size];
+    for (int e = 0; e < edges.size; e++) {
+      if (edges.u[e] != edges.v[e]) {                 // self-edges never count
+        active[activeCount] = e;
+        activeCount++;
+      }
+    }
+  }
+
+  /**
+   * minSpanTree() returns a WUGraph that represents the minimum spanning tree
+   * (a minimum spanning forest, if g is not connected) of the WUGraph g.  The
+   * original WUGraph g is NOT changed.
+   *
+   * @param g The weighted, undirected graph whose MST we want to compute.
+   * @return A newly constructed WUGraph representing the MST of g.
+   */
+  public static WUGraph minSpanTree(WUGraph g) {
+    Boruvka b = new Boruvka(g);
+    b.run();
+    WUGraph result = EdgeList.emptyCopy(g);
+    for (int e = 0; e < b.inTree.length; e++) {
+      if (b.inTree[e]) {
+        result.addEdge(g.vertexAt(b.edges.u[e]), g.vertexAt(b.edges.v[e]),
+                       b.edges.weight[e]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Runs rounds until no edge leaves any component.
+   */
+  private void run() {
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    int n = comp.length;
+    while (activeCount > 0) {
+      pool.invoke(new Step(RESET, 0, n));
+      pool.invoke(new Step(SELECT, 0, activeCount));
+      pool.invoke(new Step(HOOK, 0, n));
+      do {
+        jumped = false;
+        pool.invoke(new Step(JUMP, 0, n));
+        int[] tmp = parent;
+        parent = nextParent;
+        nextParent = tmp;
+      } while (jumped);
+      pool.invoke(new Step(RELABEL, 0, n));
+
+      int chunks = (activeCount + GRAIN - 1) / GRAIN;
+      chunkCounts = new int[chunks + 1];
+      pool.invoke(new Step(COUNT, 0, chunks));
+      for (int c = 0; c < chunks; c++) {
+        chunkCounts[c + 1] += chunkCounts[c];
+      }
+      pool.invoke(new Step(COMPACT, 0, chunks));
+      activeCount = chunkCounts[chunks];
+      int[] tmp = active;
+      active = nextActive;
+      nextActive = tmp;
+    }
+  }
+
+  /**
+   * Clears best[] for the components named by vertices lo...hi - 1.
+   */
+  private void reset(int lo, int hi) {
+    for (int c = lo; c < hi; c++) {
+      best.set(c, NONE);
+    }
+  }
+
+  /**
+   * Offers each of active[lo...hi - 1] as the lightest edge leaving the
+   * components at both of its ends.
+   */
+  private void select(int lo, int hi) {
+    for (int i = lo; i < hi; i++) {
+      int e = active[i];
+      long key = ((long) edges.weight[e] << 32) | e;
+      offer(comp[edges.u[e]], key);
+      offer(comp[edges.v[e]], key);
+    }
+  }
+
+  /**
+   * Lowers best[c] to key, unless it is already lower.
+   */
+  private void offer(int c, long key) {
+    long current = best.get(c);
+    while (key < current) {
+      if (best.compareAndSet(c, current, key)) {
+        return;
+      }
+      current = best.get(c);
+    }
+  }
+
+  /**
+   * For each component among lo...hi - 1, adds its lightest outgoing edge to
+   * the tree and points the component at the one across that edge.  When two
+   * components pick each other's edge, the one with the smaller name becomes
+   * the root of both.
+   */
+  private void hook(int lo, int hi) {
+    for (int c = lo; c < hi; c++) {
+      parent[c] = c;
+      if (comp[c] != c) {
+        continue;                               // c doesn't name a component
+      }
+      long key = best.get(c);
+      if (key == NONE) {
+        continue;
+      }
+      int e = (int) key;
+      inTree[e] = true;
+      int d = comp[edges.u[e]] == c ? comp[edges.v[e]] : comp[edges.u[e]];
+      if (best.get(d) != key || c > d) {
+        parent[c] = d;
+      }
+    }
+  }
+
+  /**
+   * One pass of pointer jumping:  sets nextParent[c] to the grandparent of
+   * each of c = lo...hi - 1.  Only parent[] is read and only nextParent[] is
+   * written, so the tasks of a pass don't race with each other.
+   */
+  private void jump(int lo, int hi) {
+    boolean changed = false;
+    for (int c = lo; c < hi; c++) {
+      int p = parent[c];
+      int pp = parent[p];
+      nextParent[c] = pp;
+      if (pp != p) {
+        changed = true;
+      }
+    }
+    if (changed) {
+      jumped = true;
+    }
+  }
+
+  /**
+   * Moves vertices lo...hi - 1 into their merged components.
+   */
+  private void relabel(int lo, int hi) {
+    for (int x = lo; x < hi; x++) {
+      comp[x] = parent[comp[x]];
+    }
+  }
+
+  /**
+   * Counts the edges in chunks lo...hi - 1 of the active list that still
+   * leave their component.
+   */
+  private void count(int lo, int hi) {
+    for (int c = lo; c < hi; c++) {
+      int end = Math.min((c + 1) * GRAIN, activeCount);
+      int kept = 0;
+      for (int i = c * GRAIN; i < end; i++) {
+        int e = active[i];
+        if (comp[edges.u[e]] != comp[edges.v[e]]) {
+          kept++;
+        }
+      }
+      chunkCounts[c + 1] = kept;
+    }
+  }
+
+  /**
+   * Copies the edges counted by count() into nextActive, each chunk starting
+   * at its prefix-summed offset.
+   */
+  private void compact(int lo, int hi) {
+    for (int c = lo; c < hi; c++) {
+      int end = Math.min((c + 1) * GRAIN, activeCount);
+      int out = chunkCounts[c];
+      for (int i = c * GRAIN; i < end; i++) {
+        int e = active[i];
+        if (comp[edges.u[e]] != comp[edges.v[e]]) {
+          nextActive[out] = e;
+          out++;
+        }
+      }
+    }
+  }
+
+  /**
+   * A Step runs one phase of a round over the range lo...hi - 1, splitting
+   * the range in half until it is at most GRAIN long.  The COUNT and COMPACT
+   * phases range over chunks of GRAIN edges, so they are never split below
+   * one chunk.
+   */
+  private class Step extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private int phase;
+    private int lo;
+    private int hi;
+
+    private Step(int phase, int lo, int hi) {
+      this.phase = phase;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    protected void compute() {
+      int grain = (phase == COUNT || phase == COMPACT) ? 1 : GRAIN;
+      if (hi - lo > grain) {
+        int mid = (lo + hi) >>> 1;
+        invokeAll(new Step(phase, lo, mid), new Step(phase, mid, hi));
+        return;
+      }
+      switch (phase) {
+      case RESET:
+        reset(lo, hi);
+        break;
+      case SELECT:
+        select(lo, hi);
+        break;
+      case HOOK:
+        hook(lo, hi);
+        break;
+      case JUMP:
+        jump(lo, hi);
+        break;
+      case RELABEL:
+        relabel(lo, hi);
+        break;
+      case COUNT:
+        count(lo, hi);
+        break;
+      case COMPACT:
+        compact(lo, hi);
+        break;
+      }
+    }
+  }
+
+}
@@ -3,13 +3,13 @@
 package graphalg;
 
 public class EdgeK {
-    protected Object object1;
-    protected Object object2;
+    protected int vertex1;
+    protected int vertex2;
     protected int weight;
 
-    protected EdgeK(Object obj1, Object obj2, int w) {
-        object1 = obj1;
-        object2 = obj2;
+    public EdgeK(int v1, int v2, int w) {
+        vertex1 = v1;
+        vertex2 = v2;
         weight = w;
     }
 
@@ -0,0 +1,72 @@
+/* EdgeList.java */
+
+package graphalg;
+
+import graph.*;
+
+/**
+ * An EdgeList holds every edge of a WUGraph in three parallel int arrays:
+ * the ids of the two endpoints (see WUGraph.vertexId()) and the weight.
+ * It is filled by WUGraph.forEachEdge(), and is what the MST algorithms in
+ * this package sort and scan instead of arrays of edge objects.
+ */
+
+class EdgeList implements EdgeVisitor {
+
+  /**
+   * u[i], v[i] and weight[i] describe edge i.
+   * size is the number of edges stored so far.
+   */
+
+  int[] u;
+  int[] v;
+  int[] weight;
+  int size;
+
+  /**
+   * Makes an empty EdgeList with room for "capacity" edges.
+   */
+
+  EdgeList(int capacity) {
+    u = new int[capacity];
+    v = new int[capacity];
+    weight = new int[capacity];
+  }
+
+  /**
+   * Returns an EdgeList holding every edge of g.
+   *
+   * Running time:  O(|E|).
+   */
+
+  static EdgeList of(WUGraph g) {
+    EdgeList edges = new EdgeList(g.edgeCount());
+    g.forEachEdge(edges);
+    return edges;
+  }
+
+  public void visit(int u, int v, int weight) {
+    this.u[size] = u;
+    this.v[size] = v;
+    this.weight[size] = weight;
+    size++;
+  }
+
+  /**
+   * Returns a new WUGraph with the same vertices as g and no edges, sized
+   * for a spanning tree (fewer than |V| edges).  The vertices are added in id
+   * order, so they get the same ids as in g.
+   *
+   * Running time:  O(|V|).
+   */
+
+  static WUGraph emptyCopy(WUGraph g) {
+    int n = g.vertexCount();
+    WUGraph result = new WUGraph(n, n);
+    for (int i = 0; i < n; i++) {
+      result.addVertex(g.vertexAt(i));
+    }
+    return result;
+  }
+
+}
@@ -2,6 +2,9 @@
 
 package graphalg;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 public class EdgeSort {
   /**
    *  Quicksort algorithm.
@@ -83,4 +86,257 @@ public class EdgeSort {
        }
      }
    }
+
+  /**
+   *  Below INSERTION_CUTOFF keys, sort() just does an insertion sort.
+   *  RADIX_BITS is the number of key bits handled by each radix sort pass.
+   **/
+  private static final int INSERTION_CUTOFF = 32;
+  private static final int RADIX_BITS = 8;
+
+  /**
+   *  Sorts keys[lo...hi - 1] into increasing order, applying the same
+   *  rearrangement to items[lo...hi - 1].  Typically keys are edge weights
+   *  and items are edge indices, so the edges themselves never move.  The
+   *  sort is stable.
+   *
+   *  If the keys span a range no wider than the number of keys, a counting
+   *  sort is used; otherwise an LSD radix sort.  Either way the running time
+   *  is linear in hi - lo.
+   *
+   *  @param keys  the sort keys.
+   *  @param items values that travel with the keys.
+   *  @param lo    first index to sort.
+   *  @param hi    one past the last index to sort.
+   **/
+  public static void sort(int[] keys, int[] items, int lo, int hi) {
+    int n = hi - lo;
+    if (n <= INSERTION_CUTOFF) {
+      insertionSort(keys, items, lo, hi);
+      return;
+    }
+    int min = keys[lo];
+    int max = keys[lo];
+    for (int i = lo + 1; i < hi; i++) {
+      if (keys[i] < min) {
+        min = keys[i];
+      } else if (keys[i] > max) {
+        max = keys[i];
+      }
+    }
+    if ((long) max - min < n) {
+      countingSort(keys, items, lo, hi, min, max);
+    } else {
+      radixSort(keys, items, lo, hi);
+    }
+  }
+
+  /**
+   *  Sorts all of keys and items; see sort(keys, items, lo, hi).
+   **/
+  public static void sort(int[] keys, int[] items) {
+    sort(keys, items, 0, keys.length);
+  }
+
+  /**
+   *  Stable insertion sort of keys[lo...hi - 1], carrying items along.
+   **/
+  private static void insertionSort(int[] keys, int[] items, int lo, int hi) {
+    for (int i = lo + 1; i < hi; i++) {
+      int key = keys[i];
+      int item = items[i];
+      int j = i - 1;
+      while (j >= lo && keys[j] > key) {
+        keys[j + 1] = keys[j];
+        items[j + 1] = items[j];
+        j--;
+      }
+      keys[j + 1] = key;
+      items[j + 1] = item;
+    }
+  }
+
+  /**
+   *  Counting sort of keys[lo...hi - 1], carrying items along.  Every key must
+   *  lie between min and max.  Runs in O(n + max - min) time.
+   **/
+  public static void countingSort(int[] keys, int[] items, int lo, int hi,
+                                  int min, int max) {
+    int[] counts = new int[max - min + 2];
+    for (int i = lo; i < hi; i++) {
+      counts[keys[i] - min + 1]++;
+    }
+    for (int k = 1; k < counts.length; k++) {
+      counts[k] += counts[k - 1];
+    }
+    // counts[k] is now the number of keys smaller than min + k.
+    int[] sortedItems = new int[hi - lo];
+    for (int i = lo; i < hi; i++) {
+      sortedItems[counts[keys[i] - min]++] = items[i];
+    }
+    System.arraycopy(sortedItems, 0, items, lo, hi - lo);
+    int i = lo;
+    for (int k = 0; k < counts.length - 1; k++) {
+      // counts[k] was advanced to the number of keys <= min + k.
+      while (i < lo + counts[k]) {
+        keys[i] = min + k;
+        i++;
+      }
+    }
+  }
+
+  /**
+   *  LSD radix sort of keys[lo...hi - 1], carrying items along.  Negative keys
+   *  are handled by flipping the sign bit, so they sort before positive ones.
+   *  Passes in which every key has the same digit are skipped.
+   **/
+  public static void radixSort(int[] keys, int[] items, int lo, int hi) {
+    int n = hi - lo;
+    if (n == 0) {
+      return;
+    }
+    int radix = 1 << RADIX_BITS;
+    int[] srcKeys = new int[n];
+    int[] srcItems = new int[n];
+    int[] dstKeys = new int[n];
+    int[] dstItems = new int[n];
+    for (int i = 0; i < n; i++) {
+      srcKeys[i] = keys[lo + i] ^ Integer.MIN_VALUE;
+    }
+    System.arraycopy(items, lo, srcItems, 0, n);
+    int[] counts = new int[radix];
+
+    for (int shift = 0; shift < 32; shift += RADIX_BITS) {
+      for (int d = 0; d < radix; d++) {
+        counts[d] = 0;
+      }
+      for (int i = 0; i < n; i++) {
+        counts[(srcKeys[i] >>> shift) & (radix - 1)]++;
+      }
+      if (counts[(srcKeys[0] >>> shift) & (radix - 1)] == n) {
+        continue;                              // all keys share this digit
+      }
+      int total = 0;
+      for (int d = 0; d < radix; d++) {
+        int c = counts[d];
+        counts[d] = total;
+        total += c;
+      }
+      for (int i = 0; i < n; i++) {
+        int pos = counts[(srcKeys[i] >>> shift) & (radix - 1)]++;
+        dstKeys[pos] = srcKeys[i];
+        dstItems[pos] = srcItems[i];
+      }
+      int[] tmp = srcKeys;
+      srcKeys = dstKeys;
+      dstKeys = tmp;
+      tmp = srcItems;
+      srcItems = dstItems;
+      dstItems = tmp;
+    }
+
+    for (int i = 0; i < n; i++) {
+      keys[lo + i] = srcKeys[i] ^ Integer.MIN_VALUE;
+    }
+    System.arraycopy(srcItems, 0, items, lo, n);
+  }
+
+  /**
+   *  DEFAULT_THRESHOLD is the range size below which parallelSort() stops
+   *  splitting and sorts sequentially.
+   **/
+  public static final int DEFAULT_THRESHOLD = 1 << 16;
+
+  /**
+   *  Sorts keys and items like sort(keys, items), using a parallel merge sort
+   *  on the common ForkJoinPool.  Ranges of at most "threshold" keys are
+   *  sorted sequentially with sort(); larger ranges are split in half, sorted
+   *  in parallel, and merged.  The sort is stable.
+   *
+   *  @param keys      the sort keys.
+   *  @param items     values that travel with the keys.
+   *  @param threshold the largest range that is sorted sequentially.
+   **/
+  public static void parallelSort(int[] keys, int[] items, int threshold) {
+    if (keys.length <= threshold) {
+      sort(keys, items);
+      return;
+    }
+    int[] keyBuffer = new int[keys.length];
+    int[] itemBuffer = new int[keys.length];
+    ForkJoinPool.commonPool().invoke(new MergeSortTask(keys, items, keyBuffer,
+        itemBuffer, 0, keys.length, Math.max(threshold, 1)));
+  }
+
+  /**
+   *  Sorts keys and items in parallel using DEFAULT_THRESHOLD.
+   **/
+  public static void parallelSort(int[] keys, int[] items) {
+    parallelSort(keys, items, DEFAULT_THRESHOLD);
+  }
+
+  /**
+   *  A MergeSortTask sorts keys[lo...hi - 1] (and items along with them),
+   *  using keyBuffer and itemBuffer over the same range as scratch space.
+   **/
+  private static class MergeSortTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private int[] keys;
+    private int[] items;
+    private int[] keyBuffer;
+    private int[] itemBuffer;
+    private int lo;
+    private int hi;
+    private int threshold;
+
+    private MergeSortTask(int[] keys, int[] items, int[] keyBuffer,
+                          int[] itemBuffer, int lo, int hi, int threshold) {
+      this.keys = keys;
+      this.items = items;
+      this.keyBuffer = keyBuffer;
+      this.itemBuffer = itemBuffer;
+      this.lo = lo;
+      this.hi = hi;
+      this.threshold = threshold;
+    }
+
+    protected void compute() {
+      if (hi - lo <= threshold) {
+        sort(keys, items, lo, hi);
+        return;
+      }
+      int mid = (lo + hi) >>> 1;
+      invokeAll(new MergeSortTask(keys, items, keyBuffer, itemBuffer,
+                                  lo, mid, threshold),
+                new MergeSortTask(keys, items, keyBuffer, itemBuffer,
+                                  mid, hi, threshold));
+      if (keys[mid - 1] <= keys[mid]) {
+        return;                                  // halves already in order
+      }
+      // Merge the two sorted halves into the buffers, then copy back.  Ties
+      // go to the left half, which keeps the sort stable.
+      int i = lo;
+      int j = mid;
+      int k = lo;
+      while (i < mid && j < hi) {
+        if (keys[j] < keys[i]) {
+          keyBuffer[k] = keys[j];
+          itemBuffer[k] = items[j];
+          j++;
+        } else {
+          keyBuffer[k] = keys[i];
+          itemBuffer[k] = items[i];
+          i++;
+        }
+        k++;
+      }
+      System.arraycopy(keys, i, keyBuffer, k, mid - i);
+      System.arraycopy(items, i, itemBuffer, k, mid - i);
+      k += mid - i;
+      // Whatever is left of the right half is already in place.
+      System.arraycopy(keyBuffer, lo, keys, lo, k - lo);
+      System.arraycopy(itemBuffer, lo, items, lo, k - lo);
+    }
+  }
 }
@@ -0,0 +1,183 @@
+/* FilterKruskal.java */
+
+package graphalg;
+
+import graph.*;
+import set.*;
+
+/**
+ * The FilterKruskal class contains the method minSpanTree(), which computes a
+ * minimum spanning tree with the Filter-Kruskal variant of Kruskal's
+ * algorithm.  Instead of sorting every edge up front, it partitions the edges
+ * around a pivot weight, finishes the light side first, and then throws away
+ * every heavy edge whose endpoints the light side already connected before
+ * looking at the heavy side.  On dense graphs most heavy edges are filtered
+ * out this way and never sorted.
+ */
+
+public class FilterKruskal {
+
+  /**
+   * Ranges of at most BASE_CASE_EDGES edges are handled by plain Kruskal
+   * (sort, then scan) instead of being partitioned further.
+   */
+  public static final int BASE_CASE_EDGES = 1024;
+
+  /**
+   * graph and edges are the input graph and its edges.
+   * order holds edge indices; the recursion rearranges ranges of it.
+   * keys is scratch space for sorting weights in the base case.
+   * sets tracks which vertices the tree built so far connects.
+   * result is the tree being built.
+   * seed is the state of the xorshift generator that nextRandom() uses to
+   *  pick the three weights pickPivot() takes the median of.  It is a field
+   *  because every call advances it, and it starts from the same constant
+   *  each run, so a graph is always partitioned (and its ties broken) the
+   *  same way.
+   */
+
+  private WUGraph graph;
+  private EdgeList edges;
+  private int[] order;
+  private int[] keys;
+  private DisjointSets sets;
+  private WUGraph result;
+  private int seed;
+
+  private FilterKruskal(WUGraph g) {
+    graph = g;
+    edges = EdgeList.of(g);
+    order = new int[edges.size];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    keys = new int[edges.size];
+    sets = new DisjointSets(g.vertexCount());
+    result = EdgeList.emptyCopy(g);
+    seed = 0x2545F491;
+  }
+
+  /**
+   * minSpanTree() returns a WUGraph that represents the minimum spanning tree
+   * (a minimum spanning forest, if g is not connected) of the WUGraph g.  The
+   * original WUGraph g is NOT changed.
+   *
+   * @param g The weighted, undirected graph whose MST we want to compute.
+   * @return A newly constructed WUGraph representing the MST of g.
+   */
+  public static WUGraph minSpanTree(WUGraph g) {
+    FilterKruskal fk = new FilterKruskal(g);
+    fk.filterKruskal(0, fk.order.length);
+    return fk.result;
+  }
+
+  /**
+   * Adds to the tree every edge in order[lo...hi - 1] that belongs to the
+   * MST, assuming all lighter edges outside the range have been dealt with.
+   */
+  private void filterKruskal(int lo, int hi) {
+    // Loop on the heavy side, recurse on the light side, so the stack only
+    // grows with the (expected logarithmic) depth of light-side partitions.
+    while (hi - lo > BASE_CASE_EDGES) {
+      int pivot = pickPivot(lo, hi);
+      int mid = partition(lo, hi, pivot, false);
+      if (mid == hi) {
+        // Nothing is heavier than the pivot; split off the edges equal to it.
+        mid = partition(lo, hi, pivot, true);
+        if (mid == lo) {
+          // Every edge has the same weight, so any order is sorted.
+          kruskal(lo, hi);
+          return;
+        }
+      }
+      filterKruskal(lo, mid);
+      lo = mid;
+      hi = filter(lo, hi);
+    }
+    for (int i = lo; i < hi; i++) {
+      keys[i] = edges.weight[order[i]];
+    }
+    EdgeSort.sort(keys, order, lo, hi);
+    kruskal(lo, hi);
+  }
+
+  /**
+   * Returns the median weight of three pseudo-randomly chosen edges in
+   * order[lo...hi - 1].
+   */
+  private int pickPivot(int lo, int hi) {
+    int a = edges.weight[order[lo + nextRandom(hi - lo)]];
+    int b = edges.weight[order[lo + nextRandom(hi - lo)]];
+    int c = edges.weight[order[lo + nextRandom(hi - lo)]];
+    if (a > b) {
+      int tmp = a;
+      a = b;
+      b = tmp;
+    }
+    if (b > c) {
+      b = c;
+    }
+    return (a > b) ? a : b;
+  }
+
+  /**
+   * Returns a pseudo-random int between 0 and n - 1 (xorshift).
+   */
+  private int nextRandom(int n) {
+    seed ^= seed << 13;
+    seed ^= seed >>> 17;
+    seed ^= seed << 5;
+    return (seed & Integer.MAX_VALUE) % n;
+  }
+
+  /**
+   * Rearranges order[lo...hi - 1] so the light edges come first, and returns
+   * the index of the first heavy edge.  An edge is light if its weight is at
+   * most "pivot", or (if strict is true) less than "pivot".
+   */
+  private int partition(int lo, int hi, int pivot, boolean strict) {
+    int i = lo;
+    for (int j = lo; j < hi; j++) {
+      int w = edges.weight[order[j]];
+      if (w < pivot || (!strict && w == pivot)) {
+        int tmp = order[i];
+        order[i] = order[j];
+        order[j] = tmp;
+        i++;
+      }
+    }
+    return i;
+  }
+
+  /**
+   * Removes from order[lo...hi - 1] every edge whose endpoints are already
+   * connected, keeping the rest at the front of the range.  Returns the new
+   * end of the range.
+   */
+  private int filter(int lo, int hi) {
+    int kept = lo;
+    for (int i = lo; i < hi; i++) {
+      int e = order[i];
+      if (sets.find(edges.u[e]) != sets.find(edges.v[e])) {
+        order[kept] = e;
+        kept++;
+      }
+    }
+    return kept;
+  }
+
+  /**
+   * Scans order[lo...hi - 1], which must be sorted by weight, adding each
+   * edge that joins two different components to the tree.
+   */
+  private void kruskal(int lo, int hi) {
+    for (int i = lo; i < hi; i++) {
+      int e = order[i];
+      if (sets.unionByFind(edges.u[e], edges.v[e])) {
+        result.addEdge(graph.vertexAt(edges.u[e]), graph.vertexAt(edges.v[e]),
+                       edges.weight[e]);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,436 @@
+/* IncrementalMST.java */
+
+package graphalg;
+
+import graph.*;
+
+/**
+ * An IncrementalMST keeps a minimum spanning forest up to date as edges are
+ * added one at a time, without recomputing it from scratch.
+ *
+ * When an edge (u, v) arrives, if u and v are in different trees the edge
+ * joins them.  Otherwise the edge would close a cycle with the tree path
+ * from u to v, and it belongs in the forest exactly when it is lighter than
+ * the heaviest edge on that path, which it then replaces.  The forest is
+ * kept in a link-cut tree, which finds the heaviest edge on a path, and
+ * joins and splits trees, in O(log |V|) amortized time.  Each tree edge is
+ * a node of its own in the link-cut tree, between its two endpoints.
+ *
+ * The forest is the minimum spanning forest of every edge ever offered.  If
+ * an edge between the same two vertices is offered again, it is treated as
+ * a parallel edge:  a lower weight can replace the old one, but a higher
+ * weight can't raise it.  Raising a weight (or removing an edge) may need a
+ * replacement edge that was discarded earlier, so it can't be handled
+ * incrementally; to do that, build a new IncrementalMST from the full
+ * graph.
+ */
+
+public class IncrementalMST {
+
+  /**
+   * tree is the current forest.  Its vertex ids (see WUGraph.vertexId())
+   * number the vertices here too.
+   * totalWeight is the sum of the weights of the forest's edges.
+   */
+
+  private WUGraph tree;
+  private long totalWeight;
+
+  /**
+   * The link-cut tree.  Nodes are numbered 0...nodeCount - 1; a node is
+   * either a vertex or a tree edge.
+   *
+   * nodeOf[x] is the node of the vertex whose id is x.
+   * left, right and parent give the splay tree each node is in; parent is
+   *  also the path-parent pointer of a splay tree's root.  Missing
+   *  pointers are -1.
+   * flip[a] means the subtree rooted at a must be mirrored before use.
+   * weight[a] is the weight of edge node a.
+   * endA[a] and endB[a] are the vertex ids joined by edge node a, or -1 if
+   *  a is a vertex node.
+   * maxNode[a] is the heaviest edge node in a's splay subtree, or -1.
+   * freeEdges[0...freeCount - 1] are edge nodes no longer in use.
+   * stack is scratch space for splay().
+   */
+
+  private int[] nodeOf;
+  private int[] left;
+  private int[] right;
+  private int[] parent;
+  private boolean[] flip;
+  private int[] weight;
+  private int[] endA;
+  private int[] endB;
+  private int[] maxNode;
+  private int nodeCount;
+  private int[] freeEdges;
+  private int freeCount;
+  private int[] stack;
+
+  /**
+   * Makes an IncrementalMST with no vertices or edges.
+   */
+  public IncrementalMST() {
+    tree = new WUGraph();
+    allocate(16, 16);
+  }
+
+  /**
+   * Makes an IncrementalMST holding a minimum spanning forest of g, with
+   * the same vertices and vertex ids.  g is NOT changed, and later changes
+   * to g are not seen here.
+   *
+   * Running time:  that of Kruskal.minSpanTree(g).
+   */
+  public IncrementalMST(WUGraph g) {
+    tree = Kruskal.minSpanTree(g);
+    int n = tree.vertexCount();
+    allocate(Math.max(n, 16), Math.max(2 * n, 16));
+    for (int x = 0; x < n; x++) {
+      nodeOf[x] = newNode(-1, -1, 0);
+    }
+    tree.forEachEdge(new EdgeVisitor() {
+      public void visit(int u, int v, int w) {
+        linkEdge(u, v, w);
+      }
+    });
+  }
+
+  /**
+   * tree() returns the current minimum spanning forest.  It is updated in
+   * place as edges are added, and must not be changed by the caller.
+   *
+   * Running time:  O(1).
+   */
+  public WUGraph tree() {
+    return tree;
+  }
+
+  /**
+   * totalWeight() returns the sum of the weights of the forest's edges.
+   *
+   * Running time:  O(1).
+   */
+  public long totalWeight() {
+    return totalWeight;
+  }
+
+  /**
+   * addVertex() adds a vertex with no edges.  If "vertex" is already a
+   * vertex, nothing happens.
+   *
+   * Running time:  O(1) amortized.
+   */
+  public void addVertex(Object vertex) {
+    if (tree.isVertex(vertex)) {
+      return;
+    }
+    tree.addVertex(vertex);
+    int x = tree.vertexId(vertex);
+    if (x >= nodeOf.length) {
+      nodeOf = grow(nodeOf, 2 * nodeOf.length);
+    }
+    nodeOf[x] = newNode(-1, -1, 0);
+  }
+
+  /**
+   * addEdge() offers an edge (u, v) of weight "weight", and updates the
+   * forest if the edge belongs in it.  Returns true if the forest changed.
+   * As with WUGraph.addEdge(), nothing happens unless u and v are both
+   * vertices; and a self-edge never belongs in the forest.
+   *
+   * Running time:  O(log |V|) amortized.
+   */
+  public boolean addEdge(Object u, Object v, int weight) {
+    int x = tree.vertexId(u);
+    int y = tree.vertexId(v);
+    if (x < 0 || y < 0 || x == y) {
+      return false;
+    }
+    int a = nodeOf[x];
+    int b = nodeOf[y];
+    makeRoot(a);
+    if (findRoot(b) != a) {
+      linkEdge(x, y, weight);
+      tree.addEdge(u, v, weight);
+      return true;
+    }
+    // Find the heaviest edge on the tree path from u to v.
+    access(b);
+    int heaviest = maxNode[b];
+    if (this.weight[heaviest] <= weight) {
+      return false;
+    }
+    int oldA = endA[heaviest];
+    int oldB = endB[heaviest];
+    cutEdge(heaviest);
+    tree.removeEdge(tree.vertexAt(oldA), tree.vertexAt(oldB));
+    linkEdge(x, y, weight);
+    tree.addEdge(u, v, weight);
+    return true;
+  }
+
+  /**
+   * connected() returns true if u and v are vertices in the same tree of
+   * the forest (that is, in the same component of the graph).
+   *
+   * Running time:  O(log |V|) amortized.
+   */
+  public boolean connected(Object u, Object v) {
+    int x = tree.vertexId(u);
+    int y = tree.vertexId(v);
+    if (x < 0 || y < 0) {
+      return false;
+    }
+    return findRoot(nodeOf[x]) == findRoot(nodeOf[y]);
+  }
+
+  /**
+   * Adds an edge node of weight w between the vertices with ids x and y,
+   * which must be in different trees, and counts its weight.
+   */
+  private void linkEdge(int x, int y, int w) {
+    int e = newNode(x, y, w);
+    link(nodeOf[x], e);
+    link(e, nodeOf[y]);
+    totalWeight += w;
+  }
+
+  /**
+   * Removes edge node e from the forest, stops counting its weight, and
+   * frees it.
+   */
+  private void cutEdge(int e) {
+    cut(nodeOf[endA[e]], e);
+    cut(e, nodeOf[endB[e]]);
+    totalWeight -= weight[e];
+    if (freeCount == freeEdges.length) {
+      freeEdges = grow(freeEdges, 2 * freeEdges.length);
+    }
+    freeEdges[freeCount] = e;
+    freeCount++;
+  }
+
+  // Node storage.
+
+  private void allocate(int vertices, int nodes) {
+    nodeOf = new int[vertices];
+    left = new int[nodes];
+    right = new int[nodes];
+    parent = new int[nodes];
+    flip = new boolean[nodes];
+    weight = new int[nodes];
+    endA = new int[nodes];
+    endB = new int[nodes];
+    maxNode = new int[nodes];
+    freeEdges = new int[16];
+    stack = new int[nodes];
+  }
+
+  /**
+   * Returns a new node, alone in its own tree:  an edge node joining the
+   * vertices with ids a and b, or a vertex node if a is -1.
+   */
+  private int newNode(int a, int b, int w) {
+    int node;
+    if (a >= 0 && freeCount > 0) {
+      freeCount--;
+      node = freeEdges[freeCount];
+    } else {
+      if (nodeCount == left.length) {
+        int capacity = 2 * nodeCount;
+        left = grow(left, capacity);
+        right = grow(right, capacity);
+        parent = grow(parent, capacity);
+        weight = grow(weight, capacity);
+        endA = grow(endA, capacity);
+        endB = grow(endB, capacity);
+        maxNode = grow(maxNode, capacity);
+        stack = grow(stack, capacity);
+        boolean[] biggerFlip = new boolean[capacity];
+        System.arraycopy(flip, 0, biggerFlip, 0, nodeCount);
+        flip = biggerFlip;
+      }
+      node = nodeCount;
+      nodeCount++;
+    }
+    left[node] = -1;
+    right[node] = -1;
+    parent[node] = -1;
+    flip[node] = false;
+    weight[node] = w;
+    endA[node] = a;
+    endB[node] = b;
+    maxNode[node] = a >= 0 ? node : -1;
+    return node;
+  }
+
+  private static int[] grow(int[] a, int capacity) {
+    int[] bigger = new int[capacity];
+    System.arraycopy(a, 0, bigger, 0, a.length);
+    return bigger;
+  }
+
+  // The link-cut tree.
+
+  /**
+   * Returns true if node a is the root of its splay tree.
+   */
+  private boolean isSplayRoot(int a) {
+    int p = parent[a];
+    return p < 0 || (left[p] != a && right[p] != a);
+  }
+
+  /**
+   * Recomputes maxNode[a] from a and its children.
+   */
+  private void update(int a) {
+    int m = endA[a] >= 0 ? a : -1;
+    int l = left[a];
+    if (l >= 0 && maxNode[l] >= 0 && (m < 0 || weight[maxNode[l]] > weight[m])) {
+      m = maxNode[l];
+    }
+    int r = right[a];
+    if (r >= 0 && maxNode[r] >= 0 && (m < 0 || weight[maxNode[r]] > weight[m])) {
+      m = maxNode[r];
+    }
+    maxNode[a] = m;
+  }
+
+  /**
+   * Carries out a pending mirror at node a, passing it on to a's children.
+   */
+  private void push(int a) {
+    if (flip[a]) {
+      int tmp = left[a];
+      left[a] = right[a];
+      right[a] = tmp;
+      if (left[a] >= 0) {
+        flip[left[a]] = !flip[left[a]];
+      }
+      if (right[a] >= 0) {
+        flip[right[a]] = !flip[right[a]];
+      }
+      flip[a] = false;
+    }
+  }
+
+  /**
+   * Rotates node a above its parent.
+   */
+  private void rotate(int a) {
+    int p = parent[a];
+    int g = parent[p];
+    if (!isSplayRoot(p)) {
+      if (left[g] == p) {
+        left[g] = a;
+      } else {
+        right[g] = a;
+      }
+    }
+    parent[a] = g;
+    if (left[p] == a) {
+      left[p] = right[a];
+      if (right[a] >= 0) {
+        parent[right[a]] = p;
+      }
+      right[a] = p;
+    } else {
+      right[p] = left[a];
+      if (left[a] >= 0) {
+        parent[left[a]] = p;
+      }
+      left[a] = p;
+    }
+    parent[p] = a;
+    update(p);
+    update(a);
+  }
+
+  /**
+   * Moves node a to the root of its splay tree.
+   */
+  private void splay(int a) {
+    // Carry out pending mirrors from the splay root down to a first.
+    int top = 0;
+    stack[top] = a;
+    for (int b = a; !isSplayRoot(b); b = parent[b]) {
+      top++;
+      stack[top] = parent[b];
+    }
+    for (; top >= 0; top--) {
+      push(stack[top]);
+    }
+    while (!isSplayRoot(a)) {
+      int p = parent[a];
+      if (!isSplayRoot(p)) {
+        int g = parent[p];
+        if ((left[g] == p) == (left[p] == a)) {
+          rotate(p);                                          // zig-zig
+        } else {
+          rotate(a);                                          // zig-zag
+        }
+      }
+      rotate(a);
+    }
+  }
+
+  /**
+   * Makes the path from node a up to the root of its tree preferred, so
+   * that afterward a is the root of a splay tree holding exactly that path.
+   */
+  private void access(int a) {
+    int last = -1;
+    for (int b = a; b >= 0; b = parent[b]) {
+      splay(b);
+      right[b] = last;
+      update(b);
+      last = b;
+    }
+    splay(a);
+  }
+
+  /**
+   * Makes node a the root of its tree.
+   */
+  private void makeRoot(int a) {
+    access(a);
+    flip[a] = !flip[a];
+  }
+
+  /**
+   * Returns the root of the tree containing node a.
+   */
+  private int findRoot(int a) {
+    access(a);
+    int r = a;
+    push(r);
+    while (left[r] >= 0) {
+      r = left[r];
+      push(r);
+    }
+    splay(r);
+    return r;
+  }
+
+  /**
+   * Joins nodes a and b, which must be in different trees.
+   */
+  private void link(int a, int b) {
+    makeRoot(a);
+    parent[a] = b;
+  }
+
+  /**
+   * Separates nodes a and b, which must be neighbors in a tree.
+   */
+  private void cut(int a, int b) {
+    makeRoot(a);
+    access(b);
+    // Now b's splay tree holds just the path a-b, with a on the left.
+    left[b] = -1;
+    parent[a] = -1;
+    update(b);
+  }
+
+}
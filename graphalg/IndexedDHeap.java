@@ -0,0 +1,232 @@
+/* IndexedDHeap.java */
+
+package graphalg;
+
+/**
+ * An IndexedDHeap is a min-heap of items numbered 0...capacity - 1, each
+ * with a long key, stored as a d-ary tree in flat arrays.  Because each
+ * item's position in the tree is kept, the key of an item already in the
+ * heap can be lowered (decreaseKey()) in O(log_d n) time, which is what
+ * Prim's and Dijkstra's algorithms need.
+ *
+ * A larger d makes the tree shallower, so decreaseKey() is cheaper and
+ * removeMin() looks at more children per level.  d = 4 is a good default
+ * when decreaseKey() is common, as it is on dense graphs.
+ *
+ * Ties between equal keys are broken arbitrarily.
+ */
+
+public class IndexedDHeap {
+
+  /**
+   * DEFAULT_ARITY is the number of children per node used unless another is
+   * given.
+   */
+  public static final int DEFAULT_ARITY = 4;
+
+  /**
+   * heap[0...size - 1] holds the items, in heap order by key.
+   * pos[x] is the index of item x in heap, or -1 if x is not in the heap.
+   * keys[x] is the key of item x, if x is in the heap.
+   * d is the number of children of each node.
+   */
+
+  private int[] heap;
+  private int[] pos;
+  private long[] keys;
+  private int size;
+  private int d;
+
+  /**
+   * Makes an empty heap for items 0...capacity - 1, in which each node has d
+   * children.
+   */
+  public IndexedDHeap(int capacity, int d) {
+    if (d < 2) {
+      throw new IllegalArgumentException("arity must be at least 2");
+    }
+    this.d = d;
+    heap = new int[capacity];
+    keys = new long[capacity];
+    pos = new int[capacity];
+    for (int i = 0; i < capacity; i++) {
+      pos[i] = -1;
+    }
+  }
+
+  /**
+   * Makes an empty heap for items 0...capacity - 1, with DEFAULT_ARITY
+   * children per node.
+   */
+  public IndexedDHeap(int capacity) {
+    this(capacity, DEFAULT_ARITY);
+  }
+
+  /**
+   * size() returns the number of items in the heap.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * isEmpty() returns true if the heap has no items.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * contains() returns true if item x is in the heap.
+   */
+  public boolean contains(int x) {
+    return pos[x] >= 0;
+  }
+
+  /**
+   * key() returns the key of item x, which must be in the heap.
+   */
+  public long key(int x) {
+    return keys[x];
+  }
+
+  /**
+   * minItem() and minKey() return the item with the smallest key, and its
+   * key.  The heap must not be empty.
+   */
+  public int minItem() {
+    return heap[0];
+  }
+
+  public long minKey() {
+    return keys[heap[0]];
+  }
+
+  /**
+   * insert() adds item x, which must not be in the heap, with key "key".
+   *
+   * Running time:  O(log_d n).
+   */
+  public void insert(int x, long key) {
+    keys[x] = key;
+    pos[x] = size;
+    heap[size] = x;
+    size++;
+    siftUp(size - 1);
+  }
+
+  /**
+   * decreaseKey() lowers the key of item x, which must be in the heap, to
+   * "key", which must be no larger than its current key.
+   *
+   * Running time:  O(log_d n).
+   */
+  public void decreaseKey(int x, long key) {
+    keys[x] = key;
+    siftUp(pos[x]);
+  }
+
+  /**
+   * insertOrDecrease() inserts item x with key "key" if x is not in the
+   * heap, or lowers its key to "key" if that is smaller.  Returns true if x
+   * was inserted or its key was lowered.
+   *
+   * Running time:  O(log_d n).
+   */
+  public boolean insertOrDecrease(int x, long key) {
+    if (pos[x] < 0) {
+      insert(x, key);
+      return true;
+    }
+    if (key < keys[x]) {
+      decreaseKey(x, key);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * removeMin() removes the item with the smallest key and returns it.  The
+   * heap must not be empty.
+   *
+   * Running time:  O(d log_d n).
+   */
+  public int removeMin() {
+    int min = heap[0];
+    pos[min] = -1;
+    size--;
+    if (size > 0) {
+      int last = heap[size];
+      heap[0] = last;
+      pos[last] = 0;
+      siftDown(0);
+    }
+    return min;
+  }
+
+  /**
+   * clear() removes every item.
+   *
+   * Running time:  O(size()).
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      pos[heap[i]] = -1;
+    }
+    size = 0;
+  }
+
+  /**
+   * Moves the item at heap[i] up until its parent's key is no larger.
+   */
+  private void siftUp(int i) {
+    int x = heap[i];
+    long key = keys[x];
+    while (i > 0) {
+      int parent = (i - 1) / d;
+      int p = heap[parent];
+      if (keys[p] <= key) {
+        break;
+      }
+      heap[i] = p;
+      pos[p] = i;
+      i = parent;
+    }
+    heap[i] = x;
+    pos[x] = i;
+  }
+
+  /**
+   * Moves the item at heap[i] down until no child's key is smaller.
+   */
+  private void siftDown(int i) {
+    int x = heap[i];
+    long key = keys[x];
+    while (true) {
+      int first = d * i + 1;
+      if (first >= size) {
+        break;
+      }
+      int last = Math.min(first + d, size);
+      int best = first;
+      long bestKey = keys[heap[first]];
+      for (int c = first + 1; c < last; c++) {
+        long k = keys[heap[c]];
+        if (k < bestKey) {
+          best = c;
+          bestKey = k;
+        }
+      }
+      if (bestKey >= key) {
+        break;
+      }
+      int child = heap[best];
+      heap[i] = child;
+      pos[child] = i;
+      i = best;
+    }
+    heap[i] = x;
+    pos[x] = i;
+  }
+
+}
@@ -4,7 +4,6 @@ package graphalg;
 
 import graph.*;
 import set.*;
-import dict.*;
 
 /**
  * The Kruskal class contains the method minSpanTree(), which implements
@@ -13,6 +12,12 @@ import dict.*;
 
 public class Kruskal {
 
+  /**
+   * Graphs with at least PARALLEL_SORT_EDGES edges have their edges sorted
+   * with EdgeSort.parallelSort() rather than EdgeSort.sort().
+   */
+  public static final int PARALLEL_SORT_EDGES = 1 << 20;
+
   /**
    * minSpanTree() returns a WUGraph that represents the minimum spanning tree
    * of the WUGraph g.  The original WUGraph g is NOT changed.
@@ -22,62 +27,32 @@ public class Kruskal {
    */
     public static WUGraph minSpanTree(WUGraph g) {
         //[1] create a new graph result w/ same vertices as g, no edges
-        WUGraph result = new WUGraph();
-        Object[] allVertices = g.getVertices();
-        for (int i=0; i < allVertices.length; i++) {
-            Object currVertex = allVertices[i];
-            result.addVertex(currVertex);
-        }
+        WUGraph result = EdgeList.emptyCopy(g);
 
-        //[2] make an array for all edges
-        EdgeK[] allEdges = new EdgeK[g.edgeCount()];
-        //make hashtable b/c the hashtable fields are protected in WUGraph
-        HashTableChained newEdges = new HashTableChained(g.edgeCount()*2+1);
-        int x = 0;
-        while (x < allEdges.length) {
-            for (int i=0; i < allVertices.length; i++) {
-                // fill in the array for all edges
-                Object currVertex = allVertices[i];
-                Neighbors currNeighbors = g.getNeighbors(currVertex);
-                Object[] currNeighborLst = currNeighbors.neighborList;
-                int[] currWeightLst = currNeighbors.weightList;
-                for (int j=0; j < currNeighborLst.length;j++) {
-                    //for every neighbor, make a edge, add to the list if not found
-                    Object currNeighbor = currNeighborLst[j];
-                    int currWeight = currWeightLst[j];
-                    VertexPairK newEdgeKey = new VertexPairK(currVertex, currNeighbor);
-                    if (newEdges.find(newEdgeKey) == null) {
-                        EdgeK newEdgeValue = new EdgeK(currVertex, currNeighbor, currWeight);
-                        newEdges.insert(newEdgeKey, newEdgeValue);
-                        allEdges[x] = newEdgeValue;
-                        x++;
-                    }
-                }
-            }
-        }
+        //[2] make parallel arrays for all edges, straight from g's edge table
+        EdgeList edges = EdgeList.of(g);
 
-        //[3] sort the edges
-        EdgeSort.quicksort(allEdges);
-
-        //[4] DisjointSets
-        HashTableChained VerticesInt = new HashTableChained(g.vertexCount());
-        DisjointSets VerticesSets = new DisjointSets(g.vertexCount());
-        Object[] resultVertices = result.getVertices();
-        for (int i=0; i < resultVertices.length; i++) {
-            VerticesInt.insert(resultVertices[i], i);
+        //[3] sort the edge indices by weight
+        int[] order = new int[edges.size];
+        for (int i=0; i < order.length; i++) {
+            order[i] = i;
+        }
+        int[] sortedWeights = edges.weight.clone();
+        if (order.length >= PARALLEL_SORT_EDGES) {
+            EdgeSort.parallelSort(sortedWeights, order);
+        } else {
+            EdgeSort.sort(sortedWeights, order);
         }
 
-        for (int i=0; i < allEdges.length; i++) {
-            Object Vertex1 = allEdges[i].object1;
-            Object Vertex2 = allEdges[i].object2;
-            int w = allEdges[i].weight;
-            int int1 = (Integer)VerticesInt.find(Vertex1).value();
-            int int2 = (Integer)VerticesInt.find(Vertex2).value();
-            if (VerticesSets.find(int1) != VerticesSets.find(int2)) {
-                result.addEdge(Vertex1,Vertex2,w);
-                VerticesSets.union(VerticesSets.find(int1), VerticesSets.find(int2));
+        //[4] DisjointSets, indexed directly by g's vertex ids
+        DisjointSets VerticesSets = new DisjointSets(g.vertexCount());
+        for (int i=0; i < order.length; i++) {
+            int e = order[i];
+            if (VerticesSets.unionByFind(edges.u[e], edges.v[e])) {
+                result.addEdge(g.vertexAt(edges.u[e]), g.vertexAt(edges.v[e]), sortedWeights[i]);
             }
         }
         return result;
     }
+
 }
@@ -0,0 +1,99 @@
+/* Prim.java */
+
+package graphalg;
+
+import graph.*;
+
+/**
+ * The Prim class contains the method minSpanTree(), which computes a minimum
+ * spanning tree with Prim's algorithm.  The tree grows out from one vertex
+ * at a time; an IndexedDHeap keyed on vertex ids holds, for each vertex not
+ * yet in the tree, the weight of the lightest edge joining it to the tree.
+ *
+ * Prim reads the graph's adjacency lists in place with forEachNeighborId()
+ * and keeps only a few int arrays of length |V|, whereas Kruskal copies
+ * every edge into arrays of length |E| and sorts them.  So Prim is the one
+ * to use when memory is tight.  It runs in O(|E| log_d |V|) time, but most
+ * of that time goes to walking the linked adjacency lists (each half-edge
+ * is a separate list node and Edge object), and Kruskal's int-array sort is
+ * often faster even on dense graphs; GraphBenchmark compares the two on
+ * sparse and dense graphs.
+ */
+
+public class Prim {
+
+  /**
+   * minSpanTree() returns a WUGraph that represents the minimum spanning tree
+   * (a minimum spanning forest, if g is not connected) of the WUGraph g.  The
+   * original WUGraph g is NOT changed.
+   *
+   * @param g The weighted, undirected graph whose MST we want to compute.
+   * @return A newly constructed WUGraph representing the MST of g.
+   */
+  public static WUGraph minSpanTree(WUGraph g) {
+    return minSpanTree(g, IndexedDHeap.DEFAULT_ARITY);
+  }
+
+  /**
+   * minSpanTree() is as above, but uses a heap in which each node has d
+   * children.
+   */
+  public static WUGraph minSpanTree(WUGraph g, int d) {
+    int n = g.vertexCount();
+    Search s = new Search(n, d);
+    WUGraph t = EdgeList.emptyCopy(g);
+    for (int root = 0; root < n; root++) {
+      if (s.inTree[root]) {
+        continue;
+      }
+      // Grow a tree of the forest from root.
+      s.heap.insert(root, 0);
+      s.link[root] = -1;
+      while (!s.heap.isEmpty()) {
+        int w = (int) s.heap.minKey();
+        int x = s.heap.removeMin();
+        s.inTree[x] = true;
+        if (s.link[x] >= 0) {
+          t.addEdge(g.vertexAt(x), g.vertexAt(s.link[x]), w);
+        }
+        s.current = x;
+        g.forEachNeighborId(x, s);
+      }
+    }
+    return t;
+  }
+
+  /**
+   * A Search holds the state of one run of Prim's algorithm, and is the
+   * visitor that offers each edge leaving "current" to the heap.
+   *
+   * heap holds the vertices next to the tree, keyed by the weight of their
+   *  lightest edge to it.
+   * inTree[x] is true once vertex x has joined the tree.
+   * link[x] is the tree vertex at the other end of that lightest edge.
+   * current is the vertex whose neighbors are being visited.
+   */
+  private static class Search implements IdNeighborVisitor {
+    private IndexedDHeap heap;
+    private boolean[] inTree;
+    private int[] link;
+    private int current;
+
+    private Search(int n, int d) {
+      heap = new IndexedDHeap(n, d);
+      inTree = new boolean[n];
+      link = new int[n];
+    }
+
+    /**
+     * Called for each edge (current, neighbor); offers the edge as the
+     * neighbor's link to the tree.
+     */
+    public void visit(int neighbor, int weight) {
+      if (!inTree[neighbor] && heap.insertOrDecrease(neighbor, weight)) {
+        link[neighbor] = current;
+      }
+    }
+  }
+
+}
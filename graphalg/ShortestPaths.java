@@ -0,0 +1,361 @@
+/* ShortestPaths.java */
+
+package graphalg;
+
+import graph.*;
+
+/**
+ * The ShortestPaths class computes shortest paths in a WUGraph with
+ * Dijkstra's algorithm:  from one vertex to all others, from one vertex to
+ * another (stopping as soon as the target is reached), and from one vertex
+ * to another searching from both ends at once.
+ *
+ * Path lengths are sums of edge weights, as longs.  Edge weights must not be
+ * negative; a search that comes across a negative weight throws an
+ * IllegalArgumentException.
+ *
+ * The searches keep their state in a workspace of int and long arrays (and
+ * binary IndexedDHeaps) indexed by vertex id, one workspace per thread,
+ * which is reused from query to query.  The arrays are never cleared:  each
+ * query bumps an epoch number, and an entry is valid only if it carries the
+ * current epoch.  So once a thread's workspace is as large as the graph,
+ * distance() and bidirectionalDistance() allocate nothing, and path()
+ * allocates only the path it returns.
+ *
+ * The adjacency lists are read with WUGraph.forEachNeighborId().  As with
+ * the other algorithms in graphalg, the graph must not change during a
+ * query (see ConcurrentWUGraph.snapshot()).
+ */
+
+public class ShortestPaths {
+
+  /**
+   * UNREACHABLE is the distance reported when there is no path.
+   */
+  public static final long UNREACHABLE = Long.MAX_VALUE;
+
+  private static final ThreadLocal<Workspace> WORKSPACE =
+    new ThreadLocal<Workspace>() {
+      protected Workspace initialValue() {
+        return new Workspace();
+      }
+    };
+
+  /**
+   * distances() returns the length of a shortest path from "source" to every
+   * vertex, indexed by vertex id (see WUGraph.vertexId()), with UNREACHABLE
+   * for vertices not connected to "source".  If "source" is not a vertex of
+   * g, every distance is UNREACHABLE.
+   *
+   * Running time:  O(|V| + |E| log |V|).
+   */
+  public static long[] distances(WUGraph g, Object source) {
+    long[] dist = new long[g.vertexCount()];
+    int s = g.vertexId(source);
+    if (s < 0) {
+      for (int i = 0; i < dist.length; i++) {
+        dist[i] = UNREACHABLE;
+      }
+      return dist;
+    }
+    distances(g, s, dist, null);
+    return dist;
+  }
+
+  /**
+   * distances() finds a shortest path from the vertex whose id is "source"
+   * to every vertex.  It stores the length of the path to the vertex with
+   * id x in dist[x] (UNREACHABLE if there is none), and if "pred" isn't
+   * null, the id of the vertex before x on the path in pred[x] (-1 for the
+   * source and for unreachable vertices).  Both arrays must have at least
+   * vertexCount() elements.  Nothing else is allocated.
+   *
+   * Running time:  O(|V| + |E| log |V|).
+   */
+  public static void distances(WUGraph g, int source, long[] dist,
+                               int[] pred) {
+    Workspace w = workspace(g);
+    w.search(g, source, -1);
+    int n = g.vertexCount();
+    for (int x = 0; x < n; x++) {
+      boolean reached = w.reached[x] == w.epoch;
+      dist[x] = reached ? w.dist[x] : UNREACHABLE;
+      if (pred != null) {
+        pred[x] = reached ? w.pred[x] : -1;
+      }
+    }
+  }
+
+  /**
+   * distance() returns the length of a shortest path from "source" to
+   * "target", or UNREACHABLE if there is none (or either is not a vertex of
+   * g).  The search stops as soon as the distance to "target" is known.
+   *
+   * Running time:  O(|E| log |V|) at worst; usually much less.
+   */
+  public static long distance(WUGraph g, Object source, Object target) {
+    int s = g.vertexId(source);
+    int t = g.vertexId(target);
+    if (s < 0 || t < 0) {
+      return UNREACHABLE;
+    }
+    Workspace w = workspace(g);
+    w.search(g, s, t);
+    return w.reached[t] == w.epoch ? w.dist[t] : UNREACHABLE;
+  }
+
+  /**
+   * bidirectionalDistance() returns the same answer as distance(), but
+   * searches from "source" and "target" at once, stopping when the two
+   * searches meet.  On large graphs this usually settles far fewer vertices
+   * than distance() does.
+   *
+   * Running time:  O(|E| log |V|) at worst; usually much less.
+   */
+  public static long bidirectionalDistance(WUGraph g, Object source,
+                                           Object target) {
+    int s = g.vertexId(source);
+    int t = g.vertexId(target);
+    if (s < 0 || t < 0) {
+      return UNREACHABLE;
+    }
+    return workspace(g).bidirectionalSearch(g, s, t);
+  }
+
+  /**
+   * path() returns the vertices on a shortest path from "source" to
+   * "target", starting with "source" and ending with "target", or null if
+   * there is no path (or either is not a vertex of g).  It searches from
+   * both ends, like bidirectionalDistance().
+   *
+   * Running time:  O(|E| log |V|) at worst; usually much less.
+   */
+  public static Object[] path(WUGraph g, Object source, Object target) {
+    int s = g.vertexId(source);
+    int t = g.vertexId(target);
+    if (s < 0 || t < 0) {
+      return null;
+    }
+    Workspace w = workspace(g);
+    if (w.bidirectionalSearch(g, s, t) == UNREACHABLE) {
+      return null;
+    }
+    // The path runs from s to w.meet along pred, then on to t along
+    // backPred.
+    int a = 0;
+    for (int x = w.meet; x != s; x = w.pred[x]) {
+      a++;
+    }
+    int b = 0;
+    for (int x = w.meet; x != t; x = w.backPred[x]) {
+      b++;
+    }
+    Object[] result = new Object[a + b + 1];
+    int i = a;
+    for (int x = w.meet; ; x = w.pred[x]) {
+      result[i] = g.vertexAt(x);
+      if (x == s) {
+        break;
+      }
+      i--;
+    }
+    i = a;
+    for (int x = w.meet; x != t; ) {
+      x = w.backPred[x];
+      i++;
+      result[i] = g.vertexAt(x);
+    }
+    return result;
+  }
+
+  /**
+   * Returns this thread's workspace, made large enough for g.
+   */
+  private static Workspace workspace(WUGraph g) {
+    Workspace w = WORKSPACE.get();
+    w.ensureCapacity(g.vertexCount());
+    return w;
+  }
+
+  /**
+   * A Workspace holds the state of one thread's searches.
+   *
+   * The forward search (from the source) uses heap, dist, pred and reached;
+   * the backward search (from the target) of a bidirectional query uses the
+   * back* arrays.  dist[x] and pred[x] mean something only if reached[x] ==
+   * epoch.  A reached vertex that is no longer in the heap is settled:  its
+   * distance is final.
+   *
+   * The Workspace is also the visitor that relaxes the edges leaving
+   * "from", whose distance is "fromDist", in the direction given by
+   * "forward".
+   */
+  private static class Workspace implements IdNeighborVisitor {
+    private int epoch;
+    private IndexedDHeap heap;
+    private long[] dist;
+    private int[] pred;
+    private int[] reached;
+    private IndexedDHeap backHeap;
+    private long[] backDist;
+    private int[] backPred;
+    private int[] backReached;
+
+    private boolean forward;
+    private boolean bidirectional;
+    private int from;
+    private long fromDist;
+
+    /**
+     * best is the length of the shortest path found so far by a
+     * bidirectional search, and meet is a vertex on it that both searches
+     * have reached.
+     */
+    private long best;
+    private int meet;
+
+    private Workspace() {
+      ensureCapacity(16);
+    }
+
+    /**
+     * Grows the arrays to hold at least n vertices.
+     */
+    private void ensureCapacity(int n) {
+      if (dist != null && dist.length >= n) {
+        return;
+      }
+      int capacity = Math.max(n, dist == null ? 0 : 2 * dist.length);
+      heap = new IndexedDHeap(capacity, 2);
+      dist = new long[capacity];
+      pred = new int[capacity];
+      reached = new int[capacity];
+      backHeap = new IndexedDHeap(capacity, 2);
+      backDist = new long[capacity];
+      backPred = new int[capacity];
+      backReached = new int[capacity];
+      epoch = 0;
+    }
+
+    /**
+     * Starts a new query, invalidating everything the last one found.
+     */
+    private void nextEpoch() {
+      heap.clear();
+      backHeap.clear();
+      if (epoch == Integer.MAX_VALUE) {
+        for (int i = 0; i < reached.length; i++) {
+          reached[i] = 0;
+          backReached[i] = 0;
+        }
+        epoch = 0;
+      }
+      epoch++;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from s, stopping once t (if t >= 0) is
+     * settled.
+     */
+    private void search(WUGraph g, int s, int t) {
+      nextEpoch();
+      bidirectional = false;
+      forward = true;
+      reach(heap, dist, pred, reached, s, 0, -1);
+      while (!heap.isEmpty()) {
+        fromDist = heap.minKey();
+        from = heap.removeMin();
+        if (from == t) {
+          return;
+        }
+        g.forEachNeighborId(from, this);
+      }
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from s and from t at once, and returns the
+     * distance between them.  Sets meet if there is a path.
+     */
+    private long bidirectionalSearch(WUGraph g, int s, int t) {
+      nextEpoch();
+      bidirectional = true;
+      reach(heap, dist, pred, reached, s, 0, -1);
+      reach(backHeap, backDist, backPred, backReached, t, 0, -1);
+      best = UNREACHABLE;
+      meet = -1;
+      if (s == t) {
+        best = 0;
+        meet = s;
+        return 0;
+      }
+      while (!heap.isEmpty() && !backHeap.isEmpty()) {
+        // Every path not yet found is at least this long.
+        if (best != UNREACHABLE && heap.minKey() + backHeap.minKey() >= best) {
+          break;
+        }
+        // Advance whichever search has fewer vertices waiting.
+        forward = heap.size() <= backHeap.size();
+        IndexedDHeap h = forward ? heap : backHeap;
+        fromDist = h.minKey();
+        from = h.removeMin();
+        g.forEachNeighborId(from, this);
+      }
+      return best;
+    }
+
+    /**
+     * Relaxes the edge from "from" to "neighbor".
+     */
+    public void visit(int neighbor, int weight) {
+      if (weight < 0) {
+        throw new IllegalArgumentException("negative edge weight " + weight);
+      }
+      long d = fromDist + weight;
+      if (forward) {
+        relax(heap, dist, pred, reached, neighbor, d);
+        if (bidirectional && backReached[neighbor] == epoch) {
+          offerMeeting(neighbor, dist[neighbor] + backDist[neighbor]);
+        }
+      } else {
+        relax(backHeap, backDist, backPred, backReached, neighbor, d);
+        if (reached[neighbor] == epoch) {
+          offerMeeting(neighbor, dist[neighbor] + backDist[neighbor]);
+        }
+      }
+    }
+
+    private void offerMeeting(int x, long length) {
+      if (length < best) {
+        best = length;
+        meet = x;
+      }
+    }
+
+    /**
+     * Lowers the distance to y to d (via "from"), unless y is settled or
+     * already has a distance no larger.
+     */
+    private void relax(IndexedDHeap h, long[] dist, int[] pred, int[] reached,
+                       int y, long d) {
+      if (reached[y] != epoch) {
+        reach(h, dist, pred, reached, y, d, from);
+      } else if (d < dist[y] && h.contains(y)) {
+        dist[y] = d;
+        pred[y] = from;
+        h.decreaseKey(y, d);
+      }
+    }
+
+    /**
+     * Records that y has first been reached, at distance d, from p.
+     */
+    private void reach(IndexedDHeap h, long[] dist, int[] pred, int[] reached,
+                       int y, long d, int p) {
+      reached[y] = epoch;
+      dist[y] = d;
+      pred[y] = p;
+      h.insert(y, d);
+    }
+  }
+
+}
@@ -0,0 +1,266 @@
+/* EdgeChunk.java */
+
+package graphio;
+
+import java.io.IOException;
+
+/**
+ * An EdgeChunk holds the edges parsed from one chunk of an edge-list file:
+ * edge i joins the vertices numbered u[i] and v[i] (as written in the file)
+ * and has weight weight[i].
+ *
+ * parse() works straight on the file's bytes, so no Strings are made.  Each
+ * line holds two integer vertex numbers and an optional weight, separated by
+ * spaces, tabs or commas.  A missing weight is 1; a weight with a fraction
+ * or exponent (e.g. "2.5" or "1e3") is rounded to the nearest int.  Anything
+ * after the weight is ignored.  Blank lines, and lines starting with '#' or
+ * '%', are skipped.
+ */
+
+class EdgeChunk {
+
+  int[] u;
+  int[] v;
+  int[] weight;
+  int size;
+
+  /**
+   * minId and maxId are the smallest and largest vertex numbers in the
+   * chunk (meaningless if the chunk is empty).
+   */
+  int minId = Integer.MAX_VALUE;
+  int maxId = Integer.MIN_VALUE;
+
+  /**
+   * b and end are the bytes being parsed; i is the next byte to look at.
+   * offset is the position of b[0] in the file, for error messages.
+   */
+  private byte[] b;
+  private int end;
+  private int i;
+  private long offset;
+
+  private EdgeChunk(byte[] b, int end, long offset) {
+    this.b = b;
+    this.end = end;
+    this.offset = offset;
+    int guess = Math.max(end / 16, 16);
+    u = new int[guess];
+    v = new int[guess];
+    weight = new int[guess];
+  }
+
+  /**
+   * parse() parses the lines in b[0...end - 1], which must hold only whole
+   * lines (the last may lack its '\n').  If readWeights is false, every edge
+   * gets weight 1 and any third column is ignored.
+   *
+   * @param offset the position of b[0] in the file, used in error messages.
+   * @throws IOException if a line is malformed.
+   */
+  static EdgeChunk parse(byte[] b, int end, long offset, boolean readWeights)
+    throws IOException {
+    EdgeChunk chunk = new EdgeChunk(b, end, offset);
+    chunk.parseLines(readWeights);
+    chunk.b = null;
+    return chunk;
+  }
+
+  private void parseLines(boolean readWeights) throws IOException {
+    while (true) {
+      skipSeparators();
+      if (i >= end) {
+        return;
+      }
+      byte c = b[i];
+      if (c == '\n') {
+        i++;
+        continue;
+      }
+      if (c == '#' || c == '%') {
+        skipLine();
+        continue;
+      }
+      int x = parseInt();
+      skipSeparators();
+      int y = parseInt();
+      skipSeparators();
+      int w = 1;
+      if (readWeights && i < end && b[i] != '\n') {
+        w = parseWeight();
+      }
+      skipLine();
+      add(x, y, w);
+    }
+  }
+
+  private void add(int x, int y, int w) {
+    if (size == u.length) {
+      u = grow(u);
+      v = grow(v);
+      weight = grow(weight);
+    }
+    u[size] = x;
+    v[size] = y;
+    weight[size] = w;
+    size++;
+    minId = Math.min(minId, Math.min(x, y));
+    maxId = Math.max(maxId, Math.max(x, y));
+  }
+
+  private static int[] grow(int[] a) {
+    int[] bigger = new int[2 * a.length];
+    System.arraycopy(a, 0, bigger, 0, a.length);
+    return bigger;
+  }
+
+  /**
+   * Skips spaces, tabs, commas and carriage returns, but not newlines.
+   */
+  private void skipSeparators() {
+    while (i < end) {
+      byte c = b[i];
+      if (c != ' ' && c != '\t' && c != ',' && c != '\r') {
+        return;
+      }
+      i++;
+    }
+  }
+
+  /**
+   * Skips past the next newline (or to the end).
+   */
+  private void skipLine() {
+    while (i < end && b[i] != '\n') {
+      i++;
+    }
+    i++;
+  }
+
+  /**
+   * Parses an optionally signed decimal integer that fits in an int.
+   */
+  private int parseInt() throws IOException {
+    int start = i;
+    boolean negative = false;
+    if (i < end && (b[i] == '-' || b[i] == '+')) {
+      negative = b[i] == '-';
+      i++;
+    }
+    long value = 0;
+    int digits = 0;
+    while (i < end && b[i] >= '0' && b[i] <= '9') {
+      value = 10 * value + (b[i] - '0');
+      if (value > (long) Integer.MAX_VALUE + 1) {
+        throw error(start, "vertex number out of range");
+      }
+      digits++;
+      i++;
+    }
+    if (digits == 0 || !atSeparator()) {
+      throw error(start, "expected a vertex number");
+    }
+    if (negative) {
+      value = -value;
+    }
+    if (value > Integer.MAX_VALUE) {
+      throw error(start, "vertex number out of range");
+    }
+    return (int) value;
+  }
+
+  /**
+   * Parses a weight:  an optionally signed decimal number with an optional
+   * fraction and exponent, rounded to the nearest int.
+   */
+  private int parseWeight() throws IOException {
+    int start = i;
+    boolean negative = false;
+    if (i < end && (b[i] == '-' || b[i] == '+')) {
+      negative = b[i] == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int exponent = 0;                  // value is mantissa * 10^exponent
+    int digits = 0;
+    boolean exact = true;
+    while (i < end && b[i] >= '0' && b[i] <= '9') {
+      if (mantissa < 100000000000000000L) {
+        mantissa = 10 * mantissa + (b[i] - '0');
+      } else {
+        exponent++;                    // drop digits past the 18th
+      }
+      digits++;
+      i++;
+    }
+    if (i < end && b[i] == '.') {
+      exact = false;
+      i++;
+      while (i < end && b[i] >= '0' && b[i] <= '9') {
+        if (mantissa < 100000000000000000L) {
+          mantissa = 10 * mantissa + (b[i] - '0');
+          exponent--;
+        }
+        digits++;
+        i++;
+      }
+    }
+    if (digits > 0 && i < end && (b[i] == 'e' || b[i] == 'E')) {
+      exact = false;
+      i++;
+      boolean negativeExp = false;
+      if (i < end && (b[i] == '-' || b[i] == '+')) {
+        negativeExp = b[i] == '-';
+        i++;
+      }
+      int e = 0;
+      int expDigits = 0;
+      while (i < end && b[i] >= '0' && b[i] <= '9') {
+        if (e < 10000) {
+          e = 10 * e + (b[i] - '0');
+        }
+        expDigits++;
+        i++;
+      }
+      if (expDigits == 0) {
+        throw error(start, "expected a weight");
+      }
+      exponent += negativeExp ? -e : e;
+    }
+    if (digits == 0 || !atSeparator()) {
+      throw error(start, "expected a weight");
+    }
+
+    double value;
+    if (exact && exponent == 0) {
+      value = mantissa;
+    } else if (exponent < 0) {
+      value = Math.round(mantissa / Math.pow(10, -exponent));
+    } else {
+      value = mantissa * Math.pow(10, exponent);
+    }
+    if (negative) {
+      value = -value;
+    }
+    if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+      throw error(start, "weight out of range");
+    }
+    return (int) value;
+  }
+
+  /**
+   * Returns true if b[i] ends a number.
+   */
+  private boolean atSeparator() {
+    if (i >= end) {
+      return true;
+    }
+    byte c = b[i];
+    return c == ' ' || c == '\t' || c == ',' || c == '\r' || c == '\n';
+  }
+
+  private IOException error(int at, String message) {
+    return new IOException(message + " at byte " + (offset + at));
+  }
+
+}
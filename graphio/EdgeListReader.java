@@ -0,0 +1,351 @@
+/* EdgeListReader.java */
+
+package graphio;
+
+import graph.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The EdgeListReader class reads a WUGraph from a text file listing its
+ * edges, in one of two formats:
+ *
+ * - A plain edge list:  one "u v weight" line per edge, separated by
+ *   spaces, tabs or commas.  The weight may be left out (it is then 1).
+ *   Lines starting with '#' or '%' are comments.  The vertices are the
+ *   numbers that appear in the file.
+ *
+ * - A Matrix Market coordinate file.  Entry (i, j) becomes an edge between
+ *   vertices i and j; "pattern" entries get weight 1, and "real" entries are
+ *   rounded to the nearest int.  The vertices are 1...max(rows, columns),
+ *   whether or not any entry mentions them.
+ *
+ * Each vertex is an Integer holding its number in the file, and vertex ids
+ * follow the order of those numbers.  If an edge is listed more than once,
+ * the last weight in the file wins, as with WUGraph.addEdge().
+ *
+ * The file is read in chunks of whole lines through a FileChannel.  While
+ * one chunk is being read, earlier chunks are parsed in parallel on the
+ * common ForkJoinPool, straight from their bytes.  Once the whole file is
+ * parsed, the graph is sized once and filled a chunk at a time with
+ * WUGraph.addEdges().
+ */
+
+public class EdgeListReader {
+
+  /**
+   * DEFAULT_CHUNK_BYTES is the number of bytes read (and parsed by one task)
+   * at a time, unless another size is given to the constructor.
+   */
+  public static final int DEFAULT_CHUNK_BYTES = 1 << 22;
+
+  /**
+   * If the vertex numbers in a plain edge list span at most DENSE_SPAN
+   * numbers per endpoint, they are mapped to vertices through an array
+   * rather than by binary search.
+   */
+  private static final int DENSE_SPAN = 4;
+
+  private int chunkBytes;
+
+  /**
+   * Makes a reader that reads DEFAULT_CHUNK_BYTES at a time.
+   */
+  public EdgeListReader() {
+    this(DEFAULT_CHUNK_BYTES);
+  }
+
+  /**
+   * Makes a reader that reads about chunkBytes bytes at a time.
+   */
+  public EdgeListReader(int chunkBytes) {
+    if (chunkBytes < 1) {
+      throw new IllegalArgumentException("chunkBytes must be positive");
+    }
+    this.chunkBytes = chunkBytes;
+  }
+
+  /**
+   * read() reads "file" as a Matrix Market file if it starts with the
+   * "%%MatrixMarket" banner, and as a plain edge list otherwise.
+   *
+   * @throws IOException if the file can't be read or is malformed.
+   */
+  public WUGraph read(File file) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      byte[] banner = new byte[MatrixMarketHeader.BANNER.length()];
+      int n = 0;
+      while (n < banner.length) {
+        int read = in.read(banner, n, banner.length - n);
+        if (read < 0) {
+          break;
+        }
+        n += read;
+      }
+      if (n == banner.length &&
+          new String(banner, "US-ASCII").equals(MatrixMarketHeader.BANNER)) {
+        return readMatrixMarket(file);
+      }
+      return readEdgeList(file);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * readEdgeList() reads "file" as a plain edge list.
+   *
+   * @throws IOException if the file can't be read or is malformed.
+   */
+  public WUGraph readEdgeList(File file) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      List<EdgeChunk> chunks = parseChunks(in.getChannel(), 0, true);
+      int minId = Integer.MAX_VALUE;
+      int maxId = Integer.MIN_VALUE;
+      int edges = 0;
+      for (EdgeChunk c : chunks) {
+        minId = Math.min(minId, c.minId);
+        maxId = Math.max(maxId, c.maxId);
+        edges += c.size;
+      }
+      if (edges == 0) {
+        return new WUGraph();
+      }
+
+      long span = (long) maxId - minId + 1;
+      if (span <= (long) DENSE_SPAN * 2 * edges) {
+        // Mark the numbers used, then give each one a vertex.
+        boolean[] used = new boolean[(int) span];
+        for (EdgeChunk c : chunks) {
+          for (int i = 0; i < c.size; i++) {
+            used[c.u[i] - minId] = true;
+            used[c.v[i] - minId] = true;
+          }
+        }
+        Integer[] vertexOf = new Integer[(int) span];
+        int count = 0;
+        for (int i = 0; i < span; i++) {
+          if (used[i]) {
+            vertexOf[i] = Integer.valueOf(minId + i);
+            count++;
+          }
+        }
+        WUGraph g = new WUGraph(count, edges);
+        for (int i = 0; i < span; i++) {
+          if (vertexOf[i] != null) {
+            g.addVertex(vertexOf[i]);
+          }
+        }
+        addEdges(g, chunks, vertexOf, minId, null);
+        return g;
+      }
+
+      // Numbers are spread thinly; sort them and look each one up.
+      int[] ids = new int[2 * edges];
+      int k = 0;
+      for (EdgeChunk c : chunks) {
+        System.arraycopy(c.u, 0, ids, k, c.size);
+        System.arraycopy(c.v, 0, ids, k + c.size, c.size);
+        k += 2 * c.size;
+      }
+      Arrays.sort(ids);
+      int count = 0;
+      for (int i = 0; i < ids.length; i++) {
+        if (i == 0 || ids[i] != ids[i - 1]) {
+          ids[count] = ids[i];
+          count++;
+        }
+      }
+      ids = Arrays.copyOf(ids, count);
+      Integer[] vertices = new Integer[count];
+      WUGraph g = new WUGraph(count, edges);
+      for (int i = 0; i < count; i++) {
+        vertices[i] = Integer.valueOf(ids[i]);
+        g.addVertex(vertices[i]);
+      }
+      addEdges(g, chunks, vertices, 0, ids);
+      return g;
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * readMatrixMarket() reads "file" as a Matrix Market coordinate file.
+   *
+   * @throws IOException if the file can't be read, is malformed, or is not
+   *         a coordinate file with pattern, integer or real entries.
+   */
+  public WUGraph readMatrixMarket(File file) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      MatrixMarketHeader header = MatrixMarketHeader.read(file);
+      List<EdgeChunk> chunks =
+        parseChunks(in.getChannel(), header.dataStart, header.hasValues);
+      int n = header.vertices;
+      int edges = 0;
+      for (EdgeChunk c : chunks) {
+        if (c.size > 0 && (c.minId < 1 || c.maxId > n)) {
+          throw new IOException(file + " has an entry outside its " +
+                                header.rows + " by " + header.columns +
+                                " matrix");
+        }
+        edges += c.size;
+      }
+      if (edges != header.entries) {
+        throw new IOException(file + " has " + edges + " entries but says " +
+                              "it has " + header.entries);
+      }
+
+      Integer[] vertexOf = new Integer[n];
+      WUGraph g = new WUGraph(n, edges);
+      for (int i = 0; i < n; i++) {
+        vertexOf[i] = Integer.valueOf(i + 1);
+        g.addVertex(vertexOf[i]);
+      }
+      addEdges(g, chunks, vertexOf, 1, null);
+      return g;
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Adds every parsed edge to g, in file order, one chunk per call to
+   * addEdges().  A vertex number x maps to vertices[x - base] if ids is
+   * null, and otherwise to vertices[j] where ids[j] == x.
+   */
+  private static void addEdges(WUGraph g, List<EdgeChunk> chunks,
+                               Integer[] vertices, int base, int[] ids) {
+    int most = 0;
+    for (EdgeChunk c : chunks) {
+      most = Math.max(most, c.size);
+    }
+    Object[] us = new Object[most];
+    Object[] vs = new Object[most];
+    for (EdgeChunk c : chunks) {
+      for (int i = 0; i < c.size; i++) {
+        if (ids == null) {
+          us[i] = vertices[c.u[i] - base];
+          vs[i] = vertices[c.v[i] - base];
+        } else {
+          us[i] = vertices[Arrays.binarySearch(ids, c.u[i])];
+          vs[i] = vertices[Arrays.binarySearch(ids, c.v[i])];
+        }
+      }
+      g.addEdges(us, vs, c.weight, c.size);
+    }
+  }
+
+  /**
+   * Reads the channel from position "start" to the end, cutting it into
+   * chunks of whole lines, and parses the chunks in parallel.  Returns the
+   * parsed chunks in file order.
+   */
+  private List<EdgeChunk> parseChunks(FileChannel channel, long start,
+                                      boolean readWeights)
+    throws IOException {
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    int maxPending = 2 * pool.getParallelism() + 1;
+    LinkedList<ParseTask> pending = new LinkedList<ParseTask>();
+    List<EdgeChunk> done = new ArrayList<EdgeChunk>();
+
+    long position = start;                  // file position of buffer[0]
+    byte[] buffer = new byte[chunkBytes];
+    int filled = 0;
+    boolean eof = false;
+    while (!eof) {
+      // Fill the buffer.
+      ByteBuffer target = ByteBuffer.wrap(buffer, filled,
+                                          buffer.length - filled);
+      while (target.hasRemaining()) {
+        int read = channel.read(target, position + target.position());
+        if (read < 0) {
+          eof = true;
+          break;
+        }
+      }
+      filled = target.position();
+
+      // Hand off everything up to the last newline; carry the rest over.
+      int cut = filled;
+      if (!eof) {
+        while (cut > 0 && buffer[cut - 1] != '\n') {
+          cut--;
+        }
+        if (cut == 0) {
+          // A line longer than the buffer; make room for more of it.
+          buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+          continue;
+        }
+      }
+      if (cut > 0) {
+        ParseTask task = new ParseTask(buffer, cut, position, readWeights);
+        pool.execute(task);
+        pending.add(task);
+        if (pending.size() >= maxPending) {
+          done.add(await(pending.removeFirst()));
+        }
+      }
+      byte[] next = new byte[Math.max(chunkBytes, filled - cut)];
+      System.arraycopy(buffer, cut, next, 0, filled - cut);
+      position += cut;
+      filled -= cut;
+      buffer = next;
+    }
+    while (!pending.isEmpty()) {
+      done.add(await(pending.removeFirst()));
+    }
+    return done;
+  }
+
+  /**
+   * Waits for a parse task and returns its chunk, rethrowing its
+   * IOException if it failed.
+   */
+  private static EdgeChunk await(ParseTask task) throws IOException {
+    task.join();
+    if (task.failure != null) {
+      throw task.failure;
+    }
+    return task.chunk;
+  }
+
+  /**
+   * A ParseTask parses one chunk of the file.
+   */
+  private static class ParseTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private byte[] bytes;
+    private int end;
+    private long offset;
+    private boolean readWeights;
+    private EdgeChunk chunk;
+    private IOException failure;
+
+    private ParseTask(byte[] bytes, int end, long offset,
+                      boolean readWeights) {
+      this.bytes = bytes;
+      this.end = end;
+      this.offset = offset;
+      this.readWeights = readWeights;
+    }
+
+    protected void compute() {
+      try {
+        chunk = EdgeChunk.parse(bytes, end, offset, readWeights);
+      } catch (IOException e) {
+        failure = e;
+      }
+      bytes = null;
+    }
+  }
+
+}
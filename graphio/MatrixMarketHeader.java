@@ -0,0 +1,105 @@
+/* MatrixMarketHeader.java */
+
+package graphio;
+
+import java.io.*;
+import java.util.StringTokenizer;
+
+/**
+ * A MatrixMarketHeader holds what EdgeListReader needs from the header of a
+ * Matrix Market file:  the banner line, any '%' comment lines, and the size
+ * line "rows columns entries".
+ */
+
+class MatrixMarketHeader {
+
+  static final String BANNER = "%%MatrixMarket";
+
+  int rows;
+  int columns;
+  int entries;
+
+  /**
+   * vertices is max(rows, columns).
+   * hasValues is false for "pattern" files, whose entries have no value.
+   * dataStart is the file position just past the size line.
+   */
+  int vertices;
+  boolean hasValues;
+  long dataStart;
+
+  /**
+   * read() reads and checks the header of "file".
+   *
+   * @throws IOException if the header is malformed, or the file is not a
+   *         coordinate file with pattern, integer or real entries.
+   */
+  static MatrixMarketHeader read(File file) throws IOException {
+    MatrixMarketHeader header = new MatrixMarketHeader();
+    InputStream in = new BufferedInputStream(new FileInputStream(file));
+    try {
+      String banner = header.readLine(in);
+      StringTokenizer words = new StringTokenizer(banner);
+      if (words.countTokens() < 5 || !words.nextToken().equals(BANNER)) {
+        throw new IOException(file + " has no Matrix Market banner");
+      }
+      String object = words.nextToken().toLowerCase();
+      String format = words.nextToken().toLowerCase();
+      String field = words.nextToken().toLowerCase();
+      if (!object.equals("matrix") || !format.equals("coordinate")) {
+        throw new IOException(file + " is a Matrix Market " + object + " " +
+                              format + "; only coordinate matrices can be " +
+                              "read as graphs");
+      }
+      if (field.equals("pattern")) {
+        header.hasValues = false;
+      } else if (field.equals("integer") || field.equals("real")) {
+        header.hasValues = true;
+      } else {
+        throw new IOException(file + " has " + field + " entries; only " +
+                              "pattern, integer and real can be read");
+      }
+
+      String line = header.readLine(in);
+      while (line.startsWith("%") || line.trim().length() == 0) {
+        line = header.readLine(in);
+      }
+      StringTokenizer size = new StringTokenizer(line);
+      try {
+        header.rows = Integer.parseInt(size.nextToken());
+        header.columns = Integer.parseInt(size.nextToken());
+        header.entries = Integer.parseInt(size.nextToken());
+      } catch (RuntimeException e) {
+        throw new IOException(file + " has a bad size line: " + line);
+      }
+      if (header.rows < 0 || header.columns < 0 || header.entries < 0) {
+        throw new IOException(file + " has a bad size line: " + line);
+      }
+      header.vertices = Math.max(header.rows, header.columns);
+      return header;
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Reads one line, counting its bytes toward dataStart.
+   */
+  private String readLine(InputStream in) throws IOException {
+    StringBuilder line = new StringBuilder();
+    int c = in.read();
+    if (c < 0) {
+      throw new EOFException("Matrix Market header ends early");
+    }
+    while (c >= 0 && c != '\n') {
+      dataStart++;
+      line.append((char) c);
+      c = in.read();
+    }
+    if (c == '\n') {
+      dataStart++;
+    }
+    return line.toString();
+  }
+
+}
@@ -0,0 +1,135 @@
+/* ConcurrentDisjointSets.java */
+
+package set;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ *  A disjoint sets ADT that any number of threads may use at once, without
+ *  locks.  Each element's parent is kept in an AtomicIntegerArray; a root is
+ *  its own parent.  union() links one root under another with a single
+ *  compare-and-set, retrying if another thread linked either root first.
+ *  find() performs path splitting, also by compare-and-set, and never waits
+ *  on other threads.
+ *
+ *  Since there is no room for a size in a root's slot, union() links by a
+ *  fixed pseudo-random priority per element instead of by size.  This keeps
+ *  trees shallow in expectation no matter what order unions arrive in.
+ *
+ *  Elements are represented by ints, numbered from zero.  Unlike
+ *  DisjointSets, the number of elements is fixed when the object is made.
+ **/
+
+public class ConcurrentDisjointSets {
+
+  private AtomicIntegerArray parent;
+
+  /**
+   *  Construct a disjoint sets object.
+   *
+   *  @param numElements the number of elements--also the initial number of
+   *  disjoint sets, since every element is initially in its own set.
+   **/
+  public ConcurrentDisjointSets(int numElements) {
+    parent = new AtomicIntegerArray(numElements);
+    for (int i = 0; i < numElements; i++) {
+      parent.set(i, i);
+    }
+  }
+
+  /**
+   *  size() returns the number of elements (not sets).
+   *
+   *  @return the number of elements.
+   **/
+  public int size() {
+    return parent.length();
+  }
+
+  /**
+   *  find() finds the (int) name of the set containing a given element.  As
+   *  it climbs, each node is pointed at its grandparent (path splitting).
+   *  If other threads are uniting sets at the same time, the result is the
+   *  root of x's set at some moment during the call.
+   *
+   *  @param x the element sought.
+   *  @return the set containing x.
+   **/
+  public int find(int x) {
+    int p = parent.get(x);
+    while (p != x) {
+      int gp = parent.get(p);
+      if (gp != p) {
+        // Losing this race is harmless:  someone else shortened the path.
+        parent.compareAndSet(x, p, gp);
+      }
+      x = p;
+      p = gp;
+    }
+    return x;
+  }
+
+  /**
+   *  union() unites the sets containing x and y, unless they are already the
+   *  same set.  x and y need not be roots.
+   *
+   *  @param x an element of the first set.
+   *  @param y an element of the other set.
+   *  @return true if this call united two sets; false if x and y were
+   *  already in the same set.
+   **/
+  public boolean union(int x, int y) {
+    while (true) {
+      int root1 = find(x);
+      int root2 = find(y);
+      if (root1 == root2) {
+        return false;
+      }
+      if (priority(root1) > priority(root2)) {
+        int tmp = root1;
+        root1 = root2;
+        root2 = tmp;
+      }
+      // Link the lower-priority root under the other; this fails if root1
+      // stopped being a root since we found it.
+      if (parent.compareAndSet(root1, root1, root2)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   *  sameSet() returns true if x and y are in the same set.  If other
+   *  threads are uniting sets at the same time, the answer was true at some
+   *  moment during the call.
+   *
+   *  @param x an element.
+   *  @param y another element.
+   *  @return true if x and y are in the same set; false otherwise.
+   **/
+  public boolean sameSet(int x, int y) {
+    while (true) {
+      int root1 = find(x);
+      int root2 = find(y);
+      if (root1 == root2) {
+        return true;
+      }
+      if (parent.get(root1) == root1) {
+        // root1 was still a root after root2 was found, so at that moment
+        // the two sets were distinct.
+        return false;
+      }
+    }
+  }
+
+  /**
+   *  priority() returns the linking priority of element x:  a scrambled
+   *  copy of x, so elements with nearby numbers get unrelated priorities.
+   *  Distinct elements always get distinct priorities.
+   **/
+  private static int priority(int x) {
+    x = x * 0x9E3779B9;
+    return x ^ (x >>> 16);
+  }
+
+}
@@ -3,8 +3,9 @@
 package set;
 
 /**
- *  A disjoint sets ADT.  Performs union-by-size and path compression.
- *  Implemented using arrays.  There is no error checking whatsoever.
+ *  A disjoint sets ADT.  Performs union-by-size and path halving.
+ *  Implemented using arrays, which grow as elements are added.  There is no
+ *  error checking whatsoever.
  *  By adding your own error-checking, you might save yourself a lot of time
  *  finding bugs in your application code for Project 3 and Homework 9.
  *  Without error-checking, expect bad things to happen if you try to unite
@@ -17,6 +18,7 @@ package set;
 public class DisjointSets {
 
   private int[] array;
+  private int size;
 
   /**
    *  Construct a disjoint sets object.
@@ -29,6 +31,50 @@ public class DisjointSets {
     for (int i = 0; i < array.length; i++) {
       array[i] = -1;
     }
+    size = numElements;
+  }
+
+  /**
+   *  size() returns the number of elements (not sets).
+   *
+   *  @return the number of elements.
+   **/
+  public int size() {
+    return size;
+  }
+
+  /**
+   *  grow() adds elements until there are newSize of them, each in a set of
+   *  its own.  Does nothing if there are already at least newSize elements.
+   *  The array grows by at least half each time it has to be reallocated, so
+   *  repeated small increases take amortized O(1) time per element.
+   *
+   *  @param newSize the number of elements wanted.
+   **/
+  public void grow(int newSize) {
+    if (newSize <= size) {
+      return;
+    }
+    if (newSize > array.length) {
+      int capacity = Math.max(newSize, array.length + (array.length >> 1));
+      int[] bigger = new int[capacity];
+      System.arraycopy(array, 0, bigger, 0, size);
+      array = bigger;
+    }
+    for (int i = size; i < newSize; i++) {
+      array[i] = -1;
+    }
+    size = newSize;
+  }
+
+  /**
+   *  addElement() adds one new element, in a set of its own.
+   *
+   *  @return the (int) name of the new element.
+   **/
+  public int addElement() {
+    grow(size + 1);
+    return size - 1;
   }
 
   /**
@@ -41,7 +87,7 @@ public class DisjointSets {
    *  @param root2 the root of the other set.
    **/
   public void union(int root1, int root2) {
-    if ((array[root1] > 0) || (array[root2] > 0)) {
+    if ((array[root1] >= 0) || (array[root2] >= 0)) {
       //One of the arguments is not a root.
       System.out.println("Error: Arguments are not roots of sets");
       return;
@@ -58,21 +104,52 @@ public class DisjointSets {
     }
   }
 
+  /**
+   *  unionByFind() unites the sets containing x and y, unless they are
+   *  already the same set.  Unlike union(), x and y need not be roots.
+   *
+   *  @param x an element of the first set.
+   *  @param y an element of the other set.
+   *  @return true if two sets were united; false if x and y were already in
+   *  the same set.
+   **/
+  public boolean unionByFind(int x, int y) {
+    int root1 = find(x);
+    int root2 = find(y);
+    if (root1 == root2) {
+      return false;
+    }
+    if (array[root2] < array[root1]) {                 // root2 has larger tree
+      array[root2] += array[root1];
+      array[root1] = root2;
+    } else {                                  // root1 has equal or larger tree
+      array[root1] += array[root2];
+      array[root2] = root1;
+    }
+    return true;
+  }
+
   /**
    *  find() finds the (int) name of the set containing a given element.
-   *  Performs path compression along the way.
+   *  Performs path halving along the way:  every other node on the path to
+   *  the root is made to point at its grandparent.  This is iterative, so
+   *  long paths cannot overflow the stack.
    *
    *  @param x the element sought.
    *  @return the set containing x.
    **/
   public int find(int x) {
-    if (array[x] < 0) {
-      return x;                         // x is the root of the tree; return it
-    } else {
-      // Find out who the root is; compress path by making the root x's parent.
-      array[x] = find(array[x]);
-      return array[x];                                       // Return the root
+    int parent = array[x];
+    while (parent >= 0) {
+      int grandparent = array[parent];
+      if (grandparent < 0) {
+        return parent;                          // parent is the root
+      }
+      array[x] = grandparent;                   // skip over parent
+      x = grandparent;
+      parent = array[x];
     }
+    return x;                           // x is the root of the tree; return it
   }
 
   /**